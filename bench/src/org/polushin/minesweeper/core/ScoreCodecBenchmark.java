@@ -0,0 +1,88 @@
+package org.polushin.minesweeper.core;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonObject;
+import com.google.gson.reflect.TypeToken;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время чтения и записи файла результатов в разных форматах.
+ * {@code gson-tree} - прежнее чтение через Gson с построением дерева на каждый результат.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class ScoreCodecBenchmark {
+
+	@Param({"10000", "100000", "1000000"})
+	public int count;
+
+	@Param({"json", "binary", "gson-tree"})
+	public String format;
+
+	private List<PlayerScore> scores;
+	private ScoreCodec codec;
+	private byte[] file;
+
+	@Setup
+	public void createFile() throws IOException {
+		scores = new ArrayList<>(count);
+		for (int i = 0; i < count; i++)
+			scores.add(new PlayerScore("player" + i % 1000, 30, 16, 99, i % 999));
+		codec = format.equals("binary") ? new BinaryScoreCodec() : new JsonScoreCodec();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		codec.write(out, scores);
+		file = out.toByteArray();
+	}
+
+	@Benchmark
+	public List<PlayerScore> read() throws IOException {
+		if (format.equals("gson-tree"))
+			try (Reader reader = new InputStreamReader(new ByteArrayInputStream(file), StandardCharsets.UTF_8)) {
+				return TreeGson.GSON.fromJson(reader, new TypeToken<List<PlayerScore>>() {}.getType());
+			}
+		return codec.read(new ByteArrayInputStream(file));
+	}
+
+	@Benchmark
+	public int write() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(file.length);
+		codec.write(out, scores);
+		return out.size();
+	}
+
+	/**
+	 * Прежний способ чтения, инициализируется только при его замере.
+	 */
+	private static final class TreeGson {
+
+		static final Gson GSON;
+
+		static {
+			JsonDeserializer<PlayerScore> deserializer = (json, type, context) -> {
+				JsonObject object = json.getAsJsonObject();
+				String nick = object.get("nick").getAsString();
+				int square = object.get("square").getAsInt();
+				int time = object.get("time").getAsInt();
+				if (!object.has("width"))
+					return new PlayerScore(nick, square, time);
+				int width = object.get("width").getAsInt();
+				int height = object.get("height").getAsInt();
+				int mines = object.get("mines").getAsInt();
+				return new PlayerScore(nick, width, height, mines, time);
+			};
+			GSON = new GsonBuilder().registerTypeAdapter(PlayerScore.class, deserializer).create();
+		}
+	}
+}
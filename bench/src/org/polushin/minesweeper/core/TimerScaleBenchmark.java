@@ -0,0 +1,64 @@
+package org.polushin.minesweeper.core;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Запускает заданное кол-во одновременно идущих таймеров игры и выводит кол-во потоков JVM,
+ * частоту обновлений и процессорное время, затраченное на их обслуживание.
+ *
+ * Аргументы: [timers] [seconds].
+ */
+public class TimerScaleBenchmark {
+
+	public static void main(String[] args) throws InterruptedException {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+		int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		int threadsBefore = threads.getThreadCount();
+		LongAdder ticks = new LongAdder();
+
+		CountingTimer[] timers = new CountingTimer[count];
+		for (int i = 0; i < count; i++) {
+			timers[i] = new CountingTimer(ticks);
+			timers[i].resetTimer();
+		}
+		Thread.sleep(1000);
+
+		ticks.reset();
+		long cpuBegin = processCpuTime();
+		long begin = System.nanoTime();
+		Thread.sleep(seconds * 1000L);
+		long elapsed = System.nanoTime() - begin;
+		long cpu = processCpuTime() - cpuBegin;
+
+		System.out.printf("Timers: %d%n", count);
+		System.out.printf("Threads: %d before, %d while running%n", threadsBefore, threads.getThreadCount());
+		System.out.printf("Ticks: %.0f per second (expected %d)%n", ticks.sum() / (elapsed / 1e9), count);
+		System.out.printf("CPU: %.1f%% of one core%n", 100.0 * cpu / elapsed);
+
+		for (CountingTimer timer : timers)
+			timer.stopTimer();
+	}
+
+	private static long processCpuTime() {
+		return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean())
+				.getProcessCpuTime();
+	}
+
+	private static final class CountingTimer extends GameTimer {
+
+		private final LongAdder ticks;
+
+		CountingTimer(LongAdder ticks) {
+			this.ticks = ticks;
+		}
+
+		@Override
+		protected void updateTimer(int currTime) {
+			ticks.increment();
+		}
+	}
+}
@@ -0,0 +1,36 @@
+package org.polushin.minesweeper.core.field;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Кол-во сгенерированных полей в секунду, включая подсчет соседей.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GenerateBenchmark {
+
+	@Param({"10:9:9", "40:16:16", "99:30:16", "500:50:50", "2499:50:50"})
+	public String board;
+
+	private int mines, width, height;
+	private long seed;
+
+	@Setup
+	public void parseBoard() {
+		String[] split = board.split(":");
+		mines = Integer.parseInt(split[0]);
+		width = Integer.parseInt(split[1]);
+		height = Integer.parseInt(split[2]);
+	}
+
+	@Benchmark
+	public Cell generate() {
+		return new RandomMinesGenerator(mines, width, height, seed++).getCell(width / 2, height / 2);
+	}
+}
@@ -0,0 +1,77 @@
+package org.polushin.minesweeper.core.field;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ходы, не открывающие области: установка и снятие флага, проверка победы и взрыв.
+ * Плотность задается кол-вом клеток на одну мину.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class InteractBenchmark {
+
+	@Param({"10", "100", "1000"})
+	public int side;
+
+	@Param({"100", "10", "5"})
+	public int cellsPerMine;
+
+	private MineField field;
+	private int mine;
+	private int cursor;
+
+	@Setup(Level.Trial)
+	public void createField() {
+		field = new RandomMinesGenerator(Math.max(1, side * side / cellsPerMine), side, side, side);
+		field.getCell(0, 0);
+		mine = 0;
+		while (!field.hasMine(mine))
+			mine++;
+	}
+
+	/**
+	 * Установка и снятие флага на очередной клетке с обновлением счетчиков соседей.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(2)
+	public int toggleFlag() {
+		int index = cursor = (cursor + 1) % (side * side);
+		int x = index / side, y = index % side;
+		return field.changeFlagSet(x, y).size() + field.changeFlagSet(x, y).size();
+	}
+
+	@Benchmark
+	public boolean isGameWon() {
+		return field.isGameWon();
+	}
+
+	/**
+	 * Взрыв открывает все клетки поля, поэтому каждое измерение требует нового поля.
+	 */
+	@Benchmark
+	public int explode(ExplodingField exploding) {
+		return exploding.field.open(exploding.mineX, exploding.mineY).size();
+	}
+
+	@State(Scope.Thread)
+	public static class ExplodingField {
+
+		MineField field;
+		int mineX, mineY;
+
+		@Setup(Level.Invocation)
+		public void createField(InteractBenchmark benchmark) {
+			int side = benchmark.side;
+			field = new RandomMinesGenerator(Math.max(1, side * side / benchmark.cellsPerMine), side, side, side);
+			field.getCell(0, 0);
+			mineX = benchmark.mine / side;
+			mineY = benchmark.mine % side;
+		}
+	}
+}
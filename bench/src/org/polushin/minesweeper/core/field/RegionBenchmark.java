@@ -0,0 +1,55 @@
+package org.polushin.minesweeper.core.field;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разметка областей и подсчет сложности поля при генерации, открытие всех областей.
+ * Плотность задается кол-вом клеток на одну мину.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class RegionBenchmark {
+
+	@Param({"1000", "4000"})
+	public int side;
+
+	@Param({"1000", "100", "10"})
+	public int cellsPerMine;
+
+	private MineField field;
+	private long seed;
+
+	@Setup(Level.Invocation)
+	public void createField() {
+		field = new RandomMinesGenerator(side * side / cellsPerMine, side, side, seed++);
+		field.getCell(0, 0);
+	}
+
+	/**
+	 * Генерация поля с подсчетом соседей, разметкой областей и подсчетом 3BV.
+	 */
+	@Benchmark
+	public Cell generate() {
+		return new RandomMinesGenerator(side * side / cellsPerMine, side, side, seed).getCell(0, 0);
+	}
+
+	/**
+	 * Открытие поля наименьшим кол-вом ходов: по одному ходу на каждую область.
+	 */
+	@Benchmark
+	public int clear() {
+		int moves = 0;
+		for (int index = 0; index < side * side; index++)
+			if (!field.hasMine(index) && !field.isOpened(index)) {
+				field.open(index / side, index % side);
+				moves++;
+			}
+		return moves;
+	}
+}
@@ -0,0 +1,50 @@
+package org.polushin.minesweeper.core.field;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время открытия области поля в пересчете на одну открытую клетку.
+ * Поле разреженное (одна мина на тысячу клеток), поэтому первый ход открывает почти все поле.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class RevealBenchmark {
+
+	@Param({"10", "100", "1000", "10000"})
+	public int side;
+
+	private MineField field;
+
+	@Setup(Level.Invocation)
+	public void createField() {
+		int mines = Math.max(1, side * side / 1000);
+		field = new RandomMinesGenerator(mines, side, side, side);
+		field.getCell(0, 0);
+	}
+
+	@Benchmark
+	public void reveal(Cells cells) {
+		cells.opened += field.getCell(0, 0).open().size();
+	}
+
+	/**
+	 * Счетчик открытых клеток, по которому JMH считает время на одну клетку.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Cells {
+
+		public long opened;
+
+		@Setup(Level.Iteration)
+		public void clean() {
+			opened = 0;
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package org.polushin.minesweeper.core.field;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Снятие снимка начатой игры и восстановление поля из него, включая подсчет соседей.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class SnapshotBenchmark {
+
+	@Param({"100", "1000", "10000"})
+	public int side;
+
+	private MineField field;
+	private FieldSnapshot snapshot;
+
+	@Setup(Level.Trial)
+	public void createField() {
+		field = new RandomMinesGenerator(side * side / 10, side, side, side);
+		field.getCell(side / 2, side / 2).open();
+		snapshot = field.snapshot();
+	}
+
+	@Benchmark
+	public FieldSnapshot snapshot() {
+		return field.snapshot();
+	}
+
+	@Benchmark
+	public MineField restore() {
+		return snapshot.restore();
+	}
+}
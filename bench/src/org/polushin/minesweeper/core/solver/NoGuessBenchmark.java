@@ -0,0 +1,37 @@
+package org.polushin.minesweeper.core.solver;
+
+import org.openjdk.jmh.annotations.*;
+import org.polushin.minesweeper.core.field.Cell;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время генерации поля без угадывания, включая проверку кандидатов решателем.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class NoGuessBenchmark {
+
+	@Param({"10:9:9", "40:16:16", "99:30:16", "500:50:50"})
+	public String board;
+
+	private int mines, width, height;
+	private long seed;
+
+	@Setup
+	public void parseBoard() {
+		String[] split = board.split(":");
+		mines = Integer.parseInt(split[0]);
+		width = Integer.parseInt(split[1]);
+		height = Integer.parseInt(split[2]);
+	}
+
+	@Benchmark
+	public Cell generate() {
+		return new NoGuessMinesGenerator(mines, width, height, seed++).getCell(width / 2, height / 2);
+	}
+}
@@ -0,0 +1,76 @@
+package org.polushin.minesweeper.core.solver;
+
+import org.openjdk.jmh.annotations.*;
+import org.polushin.minesweeper.core.field.Cell;
+import org.polushin.minesweeper.core.field.MineField;
+import org.polushin.minesweeper.core.field.RandomMinesGenerator;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время подсчета вероятностей мин в позиции, где решатель больше ничего не может доказать.
+ * {@code compute} считает все части границы заново, {@code computeCached} - с уже запомненными частями.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ProbabilityBenchmark {
+
+	@Param({"99:30:16", "500:50:50"})
+	public String board;
+
+	@Param({"1", "4"})
+	public int parallelism;
+
+	private int mines, width, height;
+	private long seed;
+	private ForkJoinPool pool;
+	private Solver solver;
+	private ProbabilityEngine cached;
+
+	@Setup
+	public void parseBoard() {
+		String[] split = board.split(":");
+		mines = Integer.parseInt(split[0]);
+		width = Integer.parseInt(split[1]);
+		height = Integer.parseInt(split[2]);
+		pool = new ForkJoinPool(parallelism);
+	}
+
+	@TearDown
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	@Setup(Level.Invocation)
+	public void createPosition() {
+		MineField field;
+		do {
+			field = new RandomMinesGenerator(mines, width, height, seed++);
+			field.getCell(width / 2, height / 2).open();
+			solver = new Solver(field);
+			solver.solve();
+			Cell next;
+			while ((next = solver.nextSafeCell()) != null) {
+				solver.update(next.open());
+				solver.solve();
+			}
+		} while (field.isGameWon() || field.isGameOver());
+		cached = new ProbabilityEngine(solver, pool);
+		cached.compute();
+	}
+
+	@Benchmark
+	public MineProbabilities compute() {
+		return new ProbabilityEngine(solver, pool).compute();
+	}
+
+	@Benchmark
+	public MineProbabilities computeCached() {
+		return cached.compute();
+	}
+}
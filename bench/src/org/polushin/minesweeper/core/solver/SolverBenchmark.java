@@ -0,0 +1,78 @@
+package org.polushin.minesweeper.core.solver;
+
+import org.openjdk.jmh.annotations.*;
+import org.polushin.minesweeper.core.field.Cell;
+import org.polushin.minesweeper.core.field.InteractResult;
+import org.polushin.minesweeper.core.field.MineField;
+import org.polushin.minesweeper.core.field.RandomMinesGenerator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Кол-во решенных позиций в секунду.
+ * {@code solveFirstMove} решает с нуля позицию после первого хода,
+ * {@code playGame} проходит партию, обновляя решатель после каждого хода, и считает каждую позицию.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SolverBenchmark {
+
+	@Param({"10:9:9", "40:16:16", "99:30:16", "500:50:50"})
+	public String board;
+
+	private int mines, width, height;
+	private long seed;
+	private MineField field;
+
+	@Setup
+	public void parseBoard() {
+		String[] split = board.split(":");
+		mines = Integer.parseInt(split[0]);
+		width = Integer.parseInt(split[1]);
+		height = Integer.parseInt(split[2]);
+	}
+
+	@Setup(Level.Invocation)
+	public void createField() {
+		field = new RandomMinesGenerator(mines, width, height, seed++);
+		field.getCell(width / 2, height / 2).open();
+	}
+
+	@Benchmark
+	public boolean solveFirstMove() {
+		return new Solver(field).solve();
+	}
+
+	@Benchmark
+	public void playGame(Positions positions) {
+		Solver solver = new Solver(field);
+		solver.solve();
+		positions.solved++;
+		Cell next;
+		while ((next = solver.nextSafeCell()) != null) {
+			InteractResult result = next.open();
+			solver.update(result);
+			solver.solve();
+			positions.solved++;
+		}
+	}
+
+	/**
+	 * Счетчик решенных позиций, по которому JMH считает производительность.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Positions {
+
+		public long solved;
+
+		@Setup(Level.Iteration)
+		public void clean() {
+			solved = 0;
+		}
+	}
+}
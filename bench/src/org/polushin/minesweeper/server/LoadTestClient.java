@@ -0,0 +1,118 @@
+package org.polushin.minesweeper.server;
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Нагрузочный клиент игрового сервера.
+ * Открывает заданное кол-во соединений, делает в каждом случайные ходы и выводит
+ * кол-во ходов в секунду и распределение задержки ответа.
+ *
+ * Аргументы: [host] [port] [connections] [moves per connection].
+ */
+public class LoadTestClient {
+
+	private static final int SIDE = 10;
+	private static final int MINES = 10;
+
+	public static void main(String[] args) throws Exception {
+		String host = args.length > 0 ? args[0] : "localhost";
+		int port = args.length > 1 ? Integer.parseInt(args[1]) : GameServer.DEFAULT_PORT;
+		int connections = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+		int moves = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+
+		long[][] latencies = new long[connections][];
+		CountDownLatch done = new CountDownLatch(connections);
+		long begin = System.nanoTime();
+		for (int i = 0; i < connections; i++) {
+			int session = i;
+			Thread thread = new Thread(() -> {
+				try {
+					latencies[session] = play(host, port, moves, session);
+				} catch (IOException e) {
+					System.err.println("Session " + session + " failed: " + e.getMessage());
+					latencies[session] = new long[0];
+				} finally {
+					done.countDown();
+				}
+			}, "load-" + i);
+			thread.start();
+		}
+		done.await();
+		long elapsed = System.nanoTime() - begin;
+
+		long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+		if (all.length == 0) {
+			System.out.println("No moves completed.");
+			return;
+		}
+		System.out.printf("Connections: %d, moves: %d, time: %.2f s%n", connections, all.length, elapsed / 1e9);
+		System.out.printf("Throughput: %.0f moves/s%n", all.length / (elapsed / 1e9));
+		System.out.printf("Latency: p50 %.3f ms, p99 %.3f ms, max %.3f ms%n", percentile(all, 0.50),
+		                  percentile(all, 0.99), all[all.length - 1] / 1e6);
+	}
+
+	/**
+	 * Играет одну сессию и возвращает задержки всех ходов в наносекундах.
+	 */
+	private static long[] play(String host, int port, int moves, long seed) throws IOException {
+		Random random = new Random(seed);
+		long[] latencies = new long[moves];
+		try (Socket socket = new Socket(host, port)) {
+			socket.setTcpNoDelay(true);
+			InputStream in = new BufferedInputStream(socket.getInputStream());
+			Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+			StringBuilder response = new StringBuilder();
+
+			readResponse(in, response);
+			send(out, "reset " + MINES + " " + SIDE + " " + SIDE);
+			readResponse(in, response);
+
+			for (int i = 0; i < moves; i++) {
+				String command = random.nextInt(4) == 0 ? "f " : "o ";
+				long start = System.nanoTime();
+				send(out, command + random.nextInt(SIDE) + " " + random.nextInt(SIDE));
+				readResponse(in, response);
+				latencies[i] = System.nanoTime() - start;
+
+				if (response.indexOf("YOU ") != -1) {
+					send(out, "reset " + MINES + " " + SIDE + " " + SIDE);
+					readResponse(in, response);
+				}
+			}
+			send(out, "exit");
+		}
+		return latencies;
+	}
+
+	private static void send(Writer out, String command) throws IOException {
+		out.write(command);
+		out.write('\n');
+		out.flush();
+	}
+
+	/**
+	 * Читает ответ сервера до приглашения к вводу.
+	 */
+	private static void readResponse(InputStream in, StringBuilder response) throws IOException {
+		response.setLength(0);
+		int prev = -1;
+		int curr;
+		while ((curr = in.read()) != -1) {
+			response.append((char) curr);
+			if (prev == '>' && curr == ' ')
+				return;
+			prev = curr;
+		}
+		throw new EOFException("Server closed connection");
+	}
+
+	private static double percentile(long[] sorted, double p) {
+		int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+		return sorted[Math.max(0, index)] / 1e6;
+	}
+}
@@ -1,32 +1,81 @@
 package org.polushin.minesweeper;
 
+import org.polushin.minesweeper.core.BoardMode;
+import org.polushin.minesweeper.core.ScoreStorage;
+import org.polushin.minesweeper.core.replay.ReplayVerifier;
 import org.polushin.minesweeper.cui.TextUI;
 import org.polushin.minesweeper.gui.MainFrame;
+import org.polushin.minesweeper.server.GameServer;
+import org.polushin.minesweeper.simulation.BotStrategy;
+import org.polushin.minesweeper.simulation.RandomBot;
+import org.polushin.minesweeper.simulation.Simulation;
+import org.polushin.minesweeper.simulation.SolverBot;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Paths;
 
 public class Main {
 
-	private static final File SCORES_FILE = new File("scores.json");
+	// Базовое имя файлов журнала рекордов, прежний scores.json импортируется при первом запуске
+	private static final File SCORES_FILE = new File("scores");
+	// Начатая игра сохраняется при выходе и продолжается при следующем запуске
+	private static final File SAVE_FILE = new File("game.save");
+	private static final int DEFAULT_SIMULATED_GAMES = 10000;
 
 	public static void main(String[] args) throws IOException {
 		if (args.length < 1) {
 			System.out.println("No args, run GUI...");
-			new MainFrame(SCORES_FILE);
+			new MainFrame(SCORES_FILE, SAVE_FILE);
 			return;
 		}
 
 		switch (args[0]) {
 			case "gui":
-				new MainFrame(SCORES_FILE);
+				new MainFrame(SCORES_FILE, SAVE_FILE);
 				break;
 			case "cui":
-				new TextUI(SCORES_FILE).runGame();
+				new TextUI(SCORES_FILE, SAVE_FILE, args.length > 1 && args[1].equals("ansi")).runGame();
+				break;
+			case "server":
+				int port = args.length > 1 ? Integer.parseInt(args[1]) : GameServer.DEFAULT_PORT;
+				File replays = args.length > 2 ? new File(args[2]) : null;
+				new GameServer(port, new ScoreStorage(SCORES_FILE), replays).run();
+				break;
+			case "simulate":
+				simulate(args);
+				break;
+			case "verify":
+				if (args.length < 2) {
+					System.out.println("Need args: verify <replays directory> [threads]");
+					break;
+				}
+				int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+				ScoreStorage scores = new ScoreStorage(SCORES_FILE);
+				new ReplayVerifier(threads).verifyDirectory(Paths.get(args[1]), scores.getScores()).print(System.out);
+				scores.close();
 				break;
 			default:
-				System.out.println("Need arg: <gui/cui>");
+				System.out.println("Need arg: <gui/cui [ansi]/server [port] [replays directory]/"
+				                   + "simulate [games] [threads] [solver|random] [random|noguess] [mines width height]/"
+				                   + "verify <directory> [threads]>");
 				break;
 		}
 	}
+
+	/**
+	 * Запускает симуляцию игр ботом и печатает отчет.
+	 * По умолчанию решатель играет на полях 30x16 с 99 минами во всех потоках процессора.
+	 */
+	private static void simulate(String[] args) {
+		int games = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SIMULATED_GAMES;
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		BotStrategy bot = args.length > 3 && args[3].equals("random") ? new RandomBot() : new SolverBot();
+		BoardMode mode = args.length > 4 ? BoardMode.valueOf(args[4].replace("noguess", "no_guess").toUpperCase())
+		                                 : BoardMode.RANDOM;
+		int mines = args.length > 7 ? Integer.parseInt(args[5]) : 99;
+		int width = args.length > 7 ? Integer.parseInt(args[6]) : 30;
+		int height = args.length > 7 ? Integer.parseInt(args[7]) : 16;
+		new Simulation(bot, mode, mines, width, height, threads, System.nanoTime()).run(games).print(System.out);
+	}
 }
@@ -0,0 +1,98 @@
+package org.polushin.minesweeper.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Автосохранение игры в фоновом потоке через заданные промежутки времени.
+ * Сохраняются только начатые и не оконченные игры, иначе прежнее сохранение удаляется,
+ * чтобы при следующем запуске не продолжалась уже оконченная игра.
+ */
+public class Autosave {
+
+	public static final int DEFAULT_INTERVAL_SECONDS = 30;
+
+	private final GameHandler game;
+	private final File file;
+	private final ScheduledThreadPoolExecutor scheduler;
+
+	/**
+	 * @param game Сохраняемая игра.
+	 * @param file Файл сохранения.
+	 * @param intervalSeconds Промежуток между сохранениями в секундах.
+	 *
+	 * @throws IllegalArgumentException Если игра или файл равны {@code null}, либо промежуток не положителен.
+	 */
+	public Autosave(GameHandler game, File file, int intervalSeconds) {
+		if (game == null)
+			throw new IllegalArgumentException("Game cannot be null!");
+		if (file == null)
+			throw new IllegalArgumentException("Save file cannot be null!");
+		if (intervalSeconds <= 0)
+			throw new IllegalArgumentException("Autosave interval must be positive!");
+		this.game = game;
+		this.file = file;
+		scheduler = new ScheduledThreadPoolExecutor(1, task -> {
+			Thread thread = new Thread(task, "autosave");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.scheduleWithFixedDelay(this::save, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Продолжает сохраненную игру, если сохранение есть.
+	 * Поврежденное сохранение удаляется.
+	 *
+	 * @return Продолжена ли игра.
+	 */
+	public boolean resume() {
+		if (!file.exists())
+			return false;
+		try {
+			game.resumeGame(file);
+			return true;
+		} catch (IOException e) {
+			e.printStackTrace();
+			delete();
+			return false;
+		}
+	}
+
+	/**
+	 * Сохраняет игру сейчас. Ошибки записи не прерывают игру и только выводятся.
+	 */
+	public void save() {
+		try {
+			if (!game.saveGame(file))
+				delete();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Останавливает автосохранение и сохраняет игру последний раз.
+	 * Вызывается при завершении работы с игрой.
+	 */
+	public void close() {
+		scheduler.shutdown();
+		try {
+			scheduler.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		save();
+	}
+
+	private void delete() {
+		try {
+			Files.deleteIfExists(file.toPath());
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+}
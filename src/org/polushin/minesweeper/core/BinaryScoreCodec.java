@@ -0,0 +1,128 @@
+package org.polushin.minesweeper.core;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Результаты в виде последовательности двоичных записей.
+ * Запись: длина данных, данные результата, CRC32 данных.
+ * Чтение останавливается на первой поврежденной или недописанной записи.
+ */
+final class BinaryScoreCodec implements ScoreCodec {
+
+	// Версия 2 добавляет сложность поля, записи версии 1 читаются без нее
+	private static final byte RECORD_VERSION = 2;
+	private static final byte RECORD_VERSION_WITHOUT_DIFFICULTY = 1;
+	// Версия, ник в формате writeUTF (до 3 байт на символ) и 8 чисел результата
+	private static final int MAX_RECORD_LENGTH = 1 + 2 + 3 * PlayerScore.MAX_NICK_LENGTH + 8 * Integer.BYTES;
+
+	@Override
+	public List<PlayerScore> read(InputStream in) throws IOException {
+		List<PlayerScore> scores = new ArrayList<>();
+		DataInputStream data = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+		PlayerScore score;
+		while ((score = readRecord(data)) != null)
+			scores.add(score);
+		return scores;
+	}
+
+	@Override
+	public void write(OutputStream out, Collection<PlayerScore> scores) throws IOException {
+		BufferedOutputStream buffered = new BufferedOutputStream(out, 1 << 16);
+		for (PlayerScore score : scores)
+			buffered.write(encodeRecord(score));
+		buffered.flush();
+	}
+
+	/**
+	 * @return Запись результата целиком.
+	 *
+	 * @throws IOException Если ник длиннее {@link PlayerScore#MAX_NICK_LENGTH}, и запись не прочиталась бы.
+	 */
+	static byte[] encodeRecord(PlayerScore score) throws IOException {
+		if (score.nick.length() > PlayerScore.MAX_NICK_LENGTH)
+			throw new IOException("Nick is too long for score record!");
+		ByteArrayOutputStream nick = new ByteArrayOutputStream(score.nick.length() + 2);
+		new DataOutputStream(nick).writeUTF(score.nick);
+
+		int length = 1 + nick.size() + 8 * Integer.BYTES;
+		ByteBuffer record = ByteBuffer.allocate(length + 2 * Integer.BYTES);
+		record.putInt(length);
+		record.put(RECORD_VERSION);
+		record.put(nick.toByteArray());
+		record.putInt(score.square);
+		record.putInt(score.time);
+		record.putInt(score.width);
+		record.putInt(score.height);
+		record.putInt(score.mines);
+		record.putInt(score.threeBV);
+		record.putInt(score.openings);
+		record.putInt(score.islands);
+
+		CRC32 crc = new CRC32();
+		crc.update(record.array(), Integer.BYTES, length);
+		record.putInt((int) crc.getValue());
+		return record.array();
+	}
+
+	/**
+	 * @return Прочитанный результат или {@code null}, если записи закончились или запись повреждена.
+	 */
+	static PlayerScore readRecord(DataInputStream in) throws IOException {
+		byte[] bytes;
+		try {
+			int length = in.readInt();
+			if (length <= 0 || length > MAX_RECORD_LENGTH)
+				return null;
+			bytes = new byte[length];
+			in.readFully(bytes);
+			CRC32 crc = new CRC32();
+			crc.update(bytes);
+			if (in.readInt() != (int) crc.getValue())
+				return null;
+		} catch (EOFException e) {
+			return null;
+		}
+
+		try {
+			ByteBuffer data = ByteBuffer.wrap(bytes);
+			byte version = data.get();
+			if (version != RECORD_VERSION && version != RECORD_VERSION_WITHOUT_DIFFICULTY)
+				return null;
+			String nick = readNick(data);
+			int square = data.getInt();
+			int time = data.getInt();
+			int width = data.getInt();
+			int height = data.getInt();
+			int mines = data.getInt();
+			if (width == 0)
+				return new PlayerScore(nick, square, time);
+			if (version == RECORD_VERSION_WITHOUT_DIFFICULTY)
+				return new PlayerScore(nick, width, height, mines, time);
+			return new PlayerScore(nick, width, height, mines, time, data.getInt(), data.getInt(), data.getInt());
+		} catch (BufferUnderflowException | IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Читает ник в формате {@link DataOutput#writeUTF(String)}.
+	 * Ники из символов ASCII, совпадающие в этом формате с Latin-1, декодируются без промежуточных потоков.
+	 */
+	private static String readNick(ByteBuffer data) throws IOException {
+		byte[] bytes = data.array();
+		int length = data.getShort() & 0xffff;
+		int start = data.position();
+		data.position(start + length);
+		for (int i = start; i < start + length; i++)
+			if (bytes[i] <= 0)
+				return new DataInputStream(new ByteArrayInputStream(bytes, start - 2, length + 2)).readUTF();
+		return new String(bytes, start, length, StandardCharsets.ISO_8859_1);
+	}
+}
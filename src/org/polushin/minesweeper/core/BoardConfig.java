@@ -0,0 +1,42 @@
+package org.polushin.minesweeper.core;
+
+/**
+ * Конфигурация поля: размеры и кол-во мин.
+ * Результаты игр сравниваются только в пределах одной конфигурации.
+ */
+public final class BoardConfig {
+
+	// Конфигурация результатов, сохраненных без размеров поля
+	public static final BoardConfig UNKNOWN = new BoardConfig(0, 0, 0);
+
+	public final int width, height, mines;
+
+	/**
+	 * @param width Ширина поля.
+	 * @param height Высота поля.
+	 * @param mines Кол-во мин.
+	 */
+	public BoardConfig(int width, int height, int mines) {
+		this.width = width;
+		this.height = height;
+		this.mines = mines;
+	}
+
+	@Override
+	public int hashCode() {
+		return (width * 31 + height) * 31 + mines;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof BoardConfig))
+			return false;
+		BoardConfig config = (BoardConfig) obj;
+		return config.width == width && config.height == height && config.mines == mines;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%dx%d, %d mines", width, height, mines);
+	}
+}
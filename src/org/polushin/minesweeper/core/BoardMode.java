@@ -0,0 +1,84 @@
+package org.polushin.minesweeper.core;
+
+import org.polushin.minesweeper.core.field.MineField;
+import org.polushin.minesweeper.core.field.RandomMinesGenerator;
+import org.polushin.minesweeper.core.solver.NoGuessMinesGenerator;
+
+/**
+ * Способ генерации поля.
+ */
+public enum BoardMode {
+
+	/**
+	 * Случайная расстановка мин, первый ход не попадает на мину.
+	 */
+	RANDOM(true) {
+		@Override
+		public MineField newField(int mines, int width, int height) {
+			return new RandomMinesGenerator(mines, width, height);
+		}
+
+		@Override
+		public MineField newField(int mines, int width, int height, long seed) {
+			return new RandomMinesGenerator(mines, width, height, seed);
+		}
+	},
+
+	/**
+	 * Поле, которое решается от первого хода без угадывания.
+	 */
+	NO_GUESS(false) {
+		@Override
+		public MineField newField(int mines, int width, int height) {
+			return new NoGuessMinesGenerator(mines, width, height);
+		}
+
+		@Override
+		public MineField newField(int mines, int width, int height, long seed) {
+			return new NoGuessMinesGenerator(mines, width, height, seed);
+		}
+
+		@Override
+		public boolean supports(int mines, int width, int height) {
+			return NoGuessMinesGenerator.isSupported(mines, width, height);
+		}
+	};
+
+	private final boolean anySafeStart;
+
+	BoardMode(boolean anySafeStart) {
+		this.anySafeStart = anySafeStart;
+	}
+
+	/**
+	 * @return Новое поле, мины на котором расставляются при первом ходе.
+	 *
+	 * @throws IllegalArgumentException Если ширина, высота или кол-во мин не положительны или
+	 * невозможно расставить данное кол-во мин.
+	 */
+	public abstract MineField newField(int mines, int width, int height);
+
+	/**
+	 * @return Новое поле, мины на котором расставляются при первом ходе по заданному зерну.
+	 *
+	 * @throws IllegalArgumentException Если ширина, высота или кол-во мин не положительны или
+	 * невозможно расставить данное кол-во мин.
+	 */
+	public abstract MineField newField(int mines, int width, int height, long seed);
+
+	/**
+	 * @return Можно ли сгенерировать этим способом поле с такими размерами и кол-вом мин,
+	 * если оно вообще допустимо.
+	 */
+	public boolean supports(int mines, int width, int height) {
+		return true;
+	}
+
+	/**
+	 * @return Может ли заранее сгенерированное поле начинаться с любой клетки без мины.
+	 * Иначе первый ход должен открыть ту же область, что и ход, с которым поле генерировалось.
+	 */
+	boolean isAnySafeStart() {
+		return anySafeStart;
+	}
+}
@@ -0,0 +1,314 @@
+package org.polushin.minesweeper.core;
+
+import org.polushin.minesweeper.core.field.MineField;
+import org.polushin.minesweeper.core.field.MineLayout;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Пул расстановок мин, сгенерированных заранее фоновыми потоками.
+ * Может разделяться несколькими обработчиками игры, работающими в разных потоках.
+ *
+ * Для каждой конфигурации поля и способа генерации держится несколько готовых расстановок.
+ * При первом ходе выдается расстановка, для которой этот ход допустим, иначе поле генерируется как обычно.
+ * Просмотренные и не подошедшие первому ходу расстановки выбрасываются, иначе в пуле копились бы расстановки
+ * с минами на часто открываемых клетках и последующие игры были бы смещены.
+ * Общий размер расстановок ограничен кол-вом клеток, давно не запрошенные конфигурации вытесняются.
+ * Расстановки полей больше {@link #MAX_PREPARED_CELLS} клеток заранее не генерируются.
+ */
+public class BoardPool {
+
+	// Ограничение общего кол-ва клеток готовых расстановок по умолчанию
+	public static final long DEFAULT_MAX_CELLS = 1 << 25;
+	// Наибольшее кол-во клеток поля, расстановки которого генерируются заранее. Фоновая генерация держит
+	// поле целиком вместе с разметкой областей, и для больших полей это заметная память сверх текущей игры
+	public static final long MAX_PREPARED_CELLS = 1 << 20;
+	// Кол-во готовых расстановок одной конфигурации
+	private static final int BOARDS_PER_CONFIG = 4;
+	// Наибольшее кол-во конфигураций, для которых держатся расстановки
+	private static final int MAX_CONFIGS = 8;
+
+	private static BoardPool shared;
+
+	private final long maxCells;
+	private final ExecutorService generators;
+	// Конфигурации в порядке последнего запроса
+	private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	private long storedCells;
+	private long hits, misses, discarded, evictions;
+
+	/**
+	 * @param maxCells Наибольшее общее кол-во клеток готовых расстановок.
+	 * @param threads Кол-во потоков генерации.
+	 *
+	 * @throws IllegalArgumentException Если ограничение клеток отрицательно или кол-во потоков не положительно.
+	 */
+	public BoardPool(long maxCells, int threads) {
+		if (maxCells < 0)
+			throw new IllegalArgumentException("Cells limit cannot be negative!");
+		if (threads <= 0)
+			throw new IllegalArgumentException("Threads count must be positive!");
+		this.maxCells = maxCells;
+		generators = Executors.newFixedThreadPool(threads, task -> {
+			Thread thread = new Thread(task, "board-generator");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		});
+	}
+
+	/**
+	 * @return Общий пул, создаваемый при первом обращении.
+	 */
+	public static synchronized BoardPool getShared() {
+		if (shared == null)
+			shared = new BoardPool(DEFAULT_MAX_CELLS, Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+		return shared;
+	}
+
+	/**
+	 * Создает поле, мины на котором при первом ходе берутся из готовых расстановок,
+	 * и начинает генерацию расстановок для его конфигурации.
+	 *
+	 * @param mode Способ генерации поля.
+	 * @param mines Кол-во мин.
+	 * @param width Ширина поля.
+	 * @param height Высота поля.
+	 *
+	 * @return Новое поле.
+	 *
+	 * @throws IllegalArgumentException Если способ генерации равен {@code null}, ширина, высота или кол-во мин
+	 * не положительны, невозможно расставить данное кол-во мин или способ генерации не поддерживает такое поле.
+	 */
+	public MineField newField(BoardMode mode, int mines, int width, int height) {
+		if (mode == null)
+			throw new IllegalArgumentException("Board mode cannot be null!");
+		if (width <= 0 || height <= 0)
+			throw new IllegalArgumentException("Width and height must be greater than zero!");
+		if (mines <= 0)
+			throw new IllegalArgumentException("Mines count must be positive!");
+		if ((long) width * height <= mines)
+			throw new IllegalArgumentException(
+					"Cannot place " + mines + " mines to " + width + "x" + height + "field.");
+		if (!mode.supports(mines, width, height))
+			throw new IllegalArgumentException("Board mode " + mode + " does not support such field!");
+		PooledField field = new PooledField(new Key(mode, new BoardConfig(width, height, mines)));
+		prepare(field.key);
+		return field;
+	}
+
+	/**
+	 * @return Кол-во первых ходов, для которых нашлась готовая расстановка.
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * @return Кол-во первых ходов, после которых поле генерировалось на месте.
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * @return Кол-во готовых расстановок, выброшенных из-за того, что первый ход не был для них допустим.
+	 */
+	public synchronized long getDiscarded() {
+		return discarded;
+	}
+
+	/**
+	 * @return Кол-во конфигураций, вытесненных из пула.
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * @return Общее кол-во клеток готовых расстановок.
+	 */
+	public synchronized long getStoredCells() {
+		return storedCells;
+	}
+
+	/**
+	 * Останавливает потоки генерации. Уже созданные поля генерируются на месте.
+	 */
+	public synchronized void close() {
+		generators.shutdownNow();
+		entries.clear();
+		storedCells = 0;
+	}
+
+	/**
+	 * Запускает генерацию недостающих расстановок конфигурации.
+	 */
+	private synchronized void prepare(Key key) {
+		fill(key, entry(key));
+	}
+
+	/**
+	 * Забирает готовую расстановку, для которой допустим первый ход на заданную клетку.
+	 * Просмотренные до нее расстановки выбрасываются, а непросмотренные остаются в пуле.
+	 * Пул пополняется только при создании следующего поля, чтобы генерация не замедляла сам ход.
+	 *
+	 * @return Расстановку или {@code null}, если подходящей нет.
+	 */
+	private synchronized MineLayout take(Key key, int startX, int startY) {
+		Entry entry = entry(key);
+		MineLayout found = null;
+		for (Iterator<MineLayout> it = entry.layouts.iterator(); it.hasNext(); ) {
+			MineLayout layout = it.next();
+			it.remove();
+			storedCells -= layout.getCellsCount();
+			if (layout.isStart(startX, startY)) {
+				found = layout;
+				break;
+			}
+			discarded++;
+		}
+		if (found == null)
+			misses++;
+		else
+			hits++;
+		return found;
+	}
+
+	/**
+	 * @return Запись конфигурации, созданную при необходимости.
+	 */
+	private Entry entry(Key key) {
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			entry = new Entry();
+			entries.put(key, entry);
+			evict();
+		}
+		return entry;
+	}
+
+	private void fill(Key key, Entry entry) {
+		if (generators.isShutdown() || key.getCellsCount() > MAX_PREPARED_CELLS)
+			return;
+		long target = Math.min(BOARDS_PER_CONFIG, maxCells / key.getCellsCount());
+		while (entry.layouts.size() + entry.pending < target) {
+			entry.pending++;
+			generators.execute(() -> generate(key, entry));
+		}
+	}
+
+	/**
+	 * Генерирует расстановку с первым ходом на случайную клетку и добавляет ее в пул.
+	 */
+	private void generate(Key key, Entry entry) {
+		MineLayout layout = null;
+		try {
+			BoardConfig config = key.config;
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			layout = MineLayout.of(key.mode.newField(config.mines, config.width, config.height),
+			                       random.nextInt(config.width), random.nextInt(config.height),
+			                       key.mode.isAnySafeStart());
+		} finally {
+			synchronized (this) {
+				entry.pending--;
+				if (layout != null && !entry.evicted) {
+					entry.layouts.add(layout);
+					storedCells += layout.getCellsCount();
+					evict();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Вытесняет давно не запрошенные конфигурации, пока пул превышает ограничения.
+	 * Последняя запрошенная конфигурация не вытесняется.
+	 */
+	private void evict() {
+		Iterator<Entry> it = entries.values().iterator();
+		while ((entries.size() > MAX_CONFIGS || storedCells > maxCells) && entries.size() > 1) {
+			Entry eldest = it.next();
+			for (MineLayout layout : eldest.layouts)
+				storedCells -= layout.getCellsCount();
+			eldest.layouts.clear();
+			eldest.evicted = true;
+			it.remove();
+			evictions++;
+		}
+	}
+
+	/**
+	 * Готовые расстановки одной конфигурации.
+	 */
+	private static final class Entry {
+
+		final ArrayDeque<MineLayout> layouts = new ArrayDeque<>();
+		// Кол-во расстановок, которые генерируются в данный момент
+		int pending;
+		boolean evicted;
+	}
+
+	/**
+	 * Конфигурация поля вместе со способом генерации.
+	 */
+	private static final class Key {
+
+		final BoardMode mode;
+		final BoardConfig config;
+
+		Key(BoardMode mode, BoardConfig config) {
+			this.mode = mode;
+			this.config = config;
+		}
+
+		long getCellsCount() {
+			return (long) config.width * config.height;
+		}
+
+		@Override
+		public int hashCode() {
+			return config.hashCode() * 31 + mode.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key key = (Key) obj;
+			return key.mode == mode && key.config.equals(config);
+		}
+	}
+
+	/**
+	 * Поле, которое при первом ходе берет расстановку из пула или генерирует ее на месте.
+	 */
+	private final class PooledField extends MineField {
+
+		final Key key;
+
+		PooledField(Key key) {
+			super(key.config.width, key.config.height);
+			this.key = key;
+			this.minesCount = key.config.mines;
+		}
+
+		@Override
+		protected void generate(int startX, int startY) {
+			BoardConfig config = key.config;
+			MineLayout layout = take(key, startX, startY);
+			if (layout == null)
+				layout = MineLayout.of(key.mode.newField(config.mines, config.width, config.height), startX, startY,
+				                       true);
+			for (int index = layout.nextMine(0); index >= 0; index = layout.nextMine(index + 1))
+				placeMine(index);
+		}
+	}
+}
@@ -1,62 +1,119 @@
 package org.polushin.minesweeper.core;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonObject;
-import com.google.gson.reflect.TypeToken;
+import org.polushin.minesweeper.core.field.Cell;
 import org.polushin.minesweeper.core.field.InteractResult;
 import org.polushin.minesweeper.core.field.MineField;
-import org.polushin.minesweeper.core.field.RandomMinesGenerator;
+import org.polushin.minesweeper.core.field.RegionStats;
+import org.polushin.minesweeper.core.replay.ReplayHeader;
+import org.polushin.minesweeper.core.replay.ReplayWriter;
 
-import java.io.*;
-import java.util.LinkedList;
-import java.util.List;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Основной обработчик управления игрой.
+ * Изменения игры выполняются под блокировкой обработчика, поэтому игру можно сохранять из другого потока.
+ * Блокировка не встроенная, так как под ней дописывается запись игры на диск, а встроенная блокировка
+ * на время ввода-вывода занимала бы несущий поток виртуального потока сессии сервера.
  */
 public class GameHandler {
 
 	public static final int DEFAULT_WIDTH = 10;
 	public static final int DEFAULT_HEIGHT = 10;
 	public static final int DEFAULT_MINES_COUNT = 10;
+	// Кол-во лучших результатов, выдаваемых в таблице рекордов
+	public static final int SCORE_TABLE_SIZE = 100;
 
-	private static final Gson GSON;
-
-	private List<PlayerScore> scores = new LinkedList<>();
-	private final File scoresFile;
+	private final ScoreStorage scores;
+	private final BoardPool boards;
 	private final GameTimer timer;
+	private final ReentrantLock lock = new ReentrantLock();
 
 	private String nick;
 	private MineField game;
+	private BoardMode mode = BoardMode.RANDOM;
 	private boolean resultRecorded;
 
+	// Каталог записей игр или null, если игры не записываются
+	private Path replayDirectory;
+	// Записывается ли текущая игра: ее поле сгенерировано по известному зерну
+	private boolean recording;
+	private long seed;
+	// Создается при первом ходе записываемой игры
+	private ReplayWriter replay;
+
 	/**
 	 * @param timer Таймер для отображения изменений.
-	 * @param scores Файл с предыдущими рекордами.
+	 * @param scores Таблица рекордов, может быть общей для нескольких обработчиков.
+	 * @param boards Пул заранее сгенерированных полей, может быть общим для нескольких обработчиков.
 	 * @param nick Ник игрока.
 	 * @param mines Кол-во мин.
 	 * @param width Ширина поля.
 	 * @param height Высота поля.
 	 *
-	 * @throws IllegalArgumentException Если timer, или scores, или nick равны {@code null},
-	 * либо ширина или высота не положительны.
+	 * @throws IllegalArgumentException Если timer, или scores, или boards, или nick равны {@code null},
+	 * ник длиннее {@link PlayerScore#MAX_NICK_LENGTH}, либо ширина или высота не положительны.
 	 */
-	public GameHandler(GameTimer timer, File scores, String nick, int mines, int width, int height) {
+	public GameHandler(GameTimer timer, ScoreStorage scores, BoardPool boards, String nick, int mines, int width,
+	                   int height) {
 		if (timer == null)
 			throw new IllegalArgumentException("Timer cannot be null!");
 		if (scores == null)
-			throw new IllegalArgumentException("Scores file cannot be null!");
-		if (nick == null)
-			throw new IllegalArgumentException("Nick cannot be null!");
+			throw new IllegalArgumentException("Scores cannot be null!");
+		if (boards == null)
+			throw new IllegalArgumentException("Board pool cannot be null!");
+		checkNick(nick);
 		this.timer = timer;
-		scoresFile = scores;
+		this.scores = scores;
+		this.boards = boards;
 		this.nick = nick;
-		loadScores();
 		restartGame(mines, width, height);
 	}
 
+	/**
+	 * @param timer Таймер для отображения изменений.
+	 * @param scores Таблица рекордов, может быть общей для нескольких обработчиков.
+	 * @param nick Ник игрока.
+	 * @param mines Кол-во мин.
+	 * @param width Ширина поля.
+	 * @param height Высота поля.
+	 *
+	 * @throws IllegalArgumentException Если timer, или scores, или nick равны {@code null},
+	 * либо ширина или высота не положительны.
+	 */
+	public GameHandler(GameTimer timer, ScoreStorage scores, String nick, int mines, int width, int height) {
+		this(timer, scores, BoardPool.getShared(), nick, mines, width, height);
+	}
+
+	/**
+	 * @param timer Таймер для отображения изменений.
+	 * @param scores Таблица рекордов, может быть общей для нескольких обработчиков.
+	 * @param nick Ник игрока.
+	 *
+	 * @throws IllegalArgumentException timer, or scores, or nick is {@code null}.
+	 */
+	public GameHandler(GameTimer timer, ScoreStorage scores, String nick) {
+		this(timer, scores, nick, DEFAULT_MINES_COUNT, DEFAULT_WIDTH, DEFAULT_HEIGHT);
+	}
+
+	/**
+	 * @param timer Таймер для отображения изменений.
+	 * @param scores Файл с предыдущими рекордами.
+	 * @param nick Ник игрока.
+	 * @param mines Кол-во мин.
+	 * @param width Ширина поля.
+	 * @param height Высота поля.
+	 *
+	 * @throws IllegalArgumentException Если timer, или scores, или nick равны {@code null},
+	 * либо ширина или высота не положительны.
+	 */
+	public GameHandler(GameTimer timer, File scores, String nick, int mines, int width, int height) {
+		this(timer, new ScoreStorage(scores), nick, mines, width, height);
+	}
+
 	/**
 	 * @param timer Таймер для отображения изменений.
 	 * @param scores Файл с предыдущими рекордами.
@@ -96,8 +153,30 @@ public class GameHandler {
 		return game.getFlagsCount();
 	}
 
+	/**
+	 * @return Поле текущей игры, например для решателя.
+	 */
+	public MineField getField() {
+		return game;
+	}
+
+	/**
+	 * @param x Позиция клетки по X.
+	 * @param y Позиция клетки по Y.
+	 *
+	 * @return Клетку для отображения или {@code null}, если первый ход еще не сделан.
+	 *
+	 * @throws IllegalArgumentException Запрос клетки вне поля.
+	 */
+	public Cell getCell(int x, int y) {
+		if (x < 0 || x >= game.getWidth() || y < 0 || y >= game.getHeight())
+			throw new IllegalArgumentException("Cell must be at field!");
+		return game.isGenerated() ? game.getCell(x, y) : null;
+	}
+
 	/**
 	 * Перезапускает игру с заданными новыми размерами поля и кол-вом мин.
+	 * Способ генерации поля сохраняется.
 	 *
 	 * @param mines Кол-во мин.
 	 * @param width Ширина поля.
@@ -106,13 +185,39 @@ public class GameHandler {
 	 * @throws IllegalArgumentException Если ширина или высота не положительны.
 	 */
 	public void restartGame(int mines, int width, int height) {
-		game = new RandomMinesGenerator(mines, width, height);
-		resultRecorded = false;
-		timer.stopTimer();
+		restartGame(mines, width, height, mode);
+	}
+
+	/**
+	 * Перезапускает игру с заданными новыми размерами поля, кол-вом мин и способом генерации.
+	 * Поле берется из пула заранее сгенерированных полей, если там есть подходящее для первого хода.
+	 * Записываемые игры генерируются на месте по случайному зерну, так как зерно поля из пула неизвестно.
+	 *
+	 * @param mines Кол-во мин.
+	 * @param width Ширина поля.
+	 * @param height Высота поля.
+	 * @param mode Способ генерации поля.
+	 *
+	 * @throws IllegalArgumentException Если способ генерации равен {@code null}, либо ширина или высота
+	 * не положительны.
+	 */
+	public void restartGame(int mines, int width, int height, BoardMode mode) {
+		lock.lock();
+		try {
+			if (replayDirectory != null) {
+				restartGame(mines, width, height, mode, ThreadLocalRandom.current().nextLong());
+				return;
+			}
+			startGame(boards.newField(mode, mines, width, height), false, 0);
+			this.mode = mode;
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	/**
 	 * Перезапускает игру с заданными новыми размерами поля, кол-вом мин и заданным зерном.
+	 * Способ генерации поля сохраняется, пул полей не используется.
 	 *
 	 * @param mines Кол-во мин.
 	 * @param width Ширина поля.
@@ -122,9 +227,125 @@ public class GameHandler {
 	 * @throws IllegalArgumentException Если ширина или высота не положительны.
 	 */
 	public void restartGame(int mines, int width, int height, long seed) {
-		game = new RandomMinesGenerator(mines, width, height, seed);
-		resultRecorded = false;
-		timer.stopTimer();
+		restartGame(mines, width, height, mode, seed);
+	}
+
+	/**
+	 * Перезапускает игру с заданными новыми размерами поля, кол-вом мин, способом генерации и зерном.
+	 * Пул полей не используется.
+	 *
+	 * @param mines Кол-во мин.
+	 * @param width Ширина поля.
+	 * @param height Высота поля.
+	 * @param mode Способ генерации поля.
+	 * @param seed Зерно генерации поля.
+	 *
+	 * @throws IllegalArgumentException Если способ генерации равен {@code null}, либо ширина или высота
+	 * не положительны.
+	 */
+	public void restartGame(int mines, int width, int height, BoardMode mode, long seed) {
+		lock.lock();
+		try {
+			if (mode == null)
+				throw new IllegalArgumentException("Board mode cannot be null!");
+			// Слишком большие поля не записываются, так как такую запись не примет проверка
+			boolean recorded = replayDirectory != null && (long) width * height <= ReplayHeader.MAX_CELLS;
+			startGame(mode.newField(mines, width, height, seed), recorded, seed);
+			this.mode = mode;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Включает запись ходов каждой следующей игры в отдельный файл каталога.
+	 * Если в текущей игре еще не сделан ход, она перезапускается и тоже записывается.
+	 *
+	 * @param directory Каталог записей или {@code null}, чтобы выключить запись.
+	 */
+	public void setReplayDirectory(File directory) {
+		lock.lock();
+		try {
+			replayDirectory = directory == null ? null : directory.toPath();
+			if (!game.isGenerated())
+				restartGame(game.getMinesCount(), game.getWidth(), game.getHeight());
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return Каталог записей игр или {@code null}, если игры не записываются.
+	 */
+	public File getReplayDirectory() {
+		return replayDirectory == null ? null : replayDirectory.toFile();
+	}
+
+	/**
+	 * Сохраняет текущую игру, если она начата и еще не окончена.
+	 * Снимок игры снимается под блокировкой обработчика, а файл пишется уже без нее, поэтому игра
+	 * не останавливается на время записи.
+	 *
+	 * @param file Файл сохранения.
+	 *
+	 * @return Сохранена ли игра.
+	 *
+	 * @throws IllegalArgumentException Если файл равен {@code null}.
+	 * @throws IOException Если не удалось записать файл.
+	 */
+	public boolean saveGame(File file) throws IOException {
+		if (file == null)
+			throw new IllegalArgumentException("Save file cannot be null!");
+		SavedGame saved;
+		lock.lock();
+		try {
+			if (!game.isGenerated() || game.isGameOver() || game.isGameWon())
+				return false;
+			saved = new SavedGame(mode, nick, timer.getElapsedMillis(), game.snapshot());
+		} finally {
+			lock.unlock();
+		}
+		saved.write(file.toPath());
+		return true;
+	}
+
+	/**
+	 * Продолжает сохраненную игру вместо текущей.
+	 * Отсчет времени продолжается с сохраненного, продолженная игра не записывается.
+	 *
+	 * @param file Файл сохранения.
+	 *
+	 * @throws IllegalArgumentException Если файл равен {@code null}.
+	 * @throws IOException Если файл не удалось прочитать или он поврежден.
+	 */
+	public void resumeGame(File file) throws IOException {
+		if (file == null)
+			throw new IllegalArgumentException("Save file cannot be null!");
+		SavedGame saved = SavedGame.read(file.toPath());
+		MineField field = saved.field.restore();
+		lock.lock();
+		try {
+			startGame(field, false, 0);
+			mode = saved.mode;
+			nick = saved.nick;
+			timer.resumeTimer(saved.elapsedMillis);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Останавливает таймер игры и завершает запись текущей игры.
+	 * Вызывается при завершении работы с обработчиком.
+	 */
+	public void close() {
+		lock.lock();
+		try {
+			timer.stopTimer();
+			finishReplay();
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	/**
@@ -139,16 +360,22 @@ public class GameHandler {
 	 * @throws IllegalStateException Попытка изменить поле во время окончания игры.
 	 */
 	public InteractResult openCell(int x, int y) {
-		if (game.isGameOver() || game.isGameWon())
-			throw new IllegalStateException("Game ends.");
-		if (x < 0 || x >= game.getWidth() || y < 0 || y >= game.getHeight())
-			throw new IllegalArgumentException("Cell must be at field!");
-		if (!timer.isRun())
-			timer.resetTimer();
-		InteractResult result = game.getCell(x, y).open();
-		if (result.isExplode())
-			timer.stopTimer();
-		return result;
+		lock.lock();
+		try {
+			if (game.isGameOver() || game.isGameWon())
+				throw new IllegalStateException("Game ends.");
+			if (x < 0 || x >= game.getWidth() || y < 0 || y >= game.getHeight())
+				throw new IllegalArgumentException("Cell must be at field!");
+			if (!timer.isRun())
+				timer.resetTimer();
+			InteractResult result = game.getCell(x, y).open();
+			if (result.isExplode())
+				timer.stopTimer();
+			recordMove(x, y, false);
+			return result;
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	/**
@@ -163,20 +390,32 @@ public class GameHandler {
 	 * @throws IllegalStateException Попытка изменить поле во время окончания игры.
 	 */
 	public InteractResult markCell(int x, int y) {
-		if (game.isGameWon() || game.isGameOver())
-			throw new IllegalStateException("Game ends.");
-		if (x < 0 || x >= game.getWidth() || y < 0 || y >= game.getHeight())
-			throw new IllegalArgumentException("Cell must be at field!");
-		return game.getCell(x, y).changeFlagSet();
+		lock.lock();
+		try {
+			if (game.isGameWon() || game.isGameOver())
+				throw new IllegalStateException("Game ends.");
+			if (x < 0 || x >= game.getWidth() || y < 0 || y >= game.getHeight())
+				throw new IllegalArgumentException("Cell must be at field!");
+			InteractResult result = game.getCell(x, y).changeFlagSet();
+			recordMove(x, y, true);
+			return result;
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	/**
 	 * @return Выиграна ли игра.
 	 */
 	public boolean isGameWon() {
-		if (game.isGameWon())
-			recordResult();
-		return game.isGameWon();
+		lock.lock();
+		try {
+			if (game.isGameWon())
+				recordResult();
+			return game.isGameWon();
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	/**
@@ -187,10 +426,50 @@ public class GameHandler {
 	}
 
 	/**
-	 * @return Таблица рекордов игроков.
+	 * @return Способ генерации текущего поля.
+	 */
+	public BoardMode getBoardMode() {
+		return mode;
+	}
+
+	/**
+	 * @return Конфигурация текущего поля.
+	 */
+	public BoardConfig getBoardConfig() {
+		return new BoardConfig(game.getWidth(), game.getHeight(), game.getMinesCount());
+	}
+
+	/**
+	 * @return Лучшие по времени результаты игроков на полях текущей конфигурации.
 	 */
 	public Iterable<PlayerScore> getScoreTable() {
-		return scores;
+		return getScoreTable(ScoreOrder.TIME);
+	}
+
+	/**
+	 * @param order Порядок результатов.
+	 *
+	 * @return Лучшие результаты игроков на полях текущей конфигурации.
+	 */
+	public Iterable<PlayerScore> getScoreTable(ScoreOrder order) {
+		return scores.getTop(getBoardConfig(), SCORE_TABLE_SIZE, order);
+	}
+
+	/**
+	 * @return Место лучшего по времени результата игрока на полях текущей конфигурации или 0,
+	 * если результатов нет.
+	 */
+	public int getPlayerRank() {
+		return getPlayerRank(ScoreOrder.TIME);
+	}
+
+	/**
+	 * @param order Порядок результатов.
+	 *
+	 * @return Место лучшего результата игрока на полях текущей конфигурации или 0, если результатов нет.
+	 */
+	public int getPlayerRank(ScoreOrder order) {
+		return scores.getRank(getBoardConfig(), nick, order);
 	}
 
 	/**
@@ -204,70 +483,80 @@ public class GameHandler {
 	 * Устанавливает ник игроку.
 	 *
 	 * @param nick Новый ник игрока.
+	 *
+	 * @throws IllegalArgumentException Если ник равен {@code null} или длиннее {@link PlayerScore#MAX_NICK_LENGTH}.
 	 */
 	public void setNick(String nick) {
+		checkNick(nick);
 		this.nick = nick;
 	}
 
-	/**
-	 * Останавливает отсчет времени и записывает результат в таблицу рекордов.
-	 */
-	private void recordResult() {
-		if (resultRecorded)
-			return;
-		resultRecorded = true;
-		timer.stopTimer();
-
-		PlayerScore score = new PlayerScore(nick, game.getWidth() * game.getHeight(), timer.getTimePassed());
-
-		// TODO - сортировка по размерам поля?
-		int i = 0;
-		for (; i < scores.size(); i++) {
-			PlayerScore sc = scores.get(i);
-			if (sc.time > score.time)
-				break;
-		}
+	private static void checkNick(String nick) {
+		if (nick == null)
+			throw new IllegalArgumentException("Nick cannot be null!");
+		if (nick.length() > PlayerScore.MAX_NICK_LENGTH)
+			throw new IllegalArgumentException("Nick cannot be longer than " + PlayerScore.MAX_NICK_LENGTH + "!");
+	}
 
-		scores.add(i, score);
-		saveScores();
+	private void startGame(MineField field, boolean recorded, long seed) {
+		finishReplay();
+		game = field;
+		recording = recorded;
+		this.seed = seed;
+		resultRecorded = false;
+		timer.clearTimer();
 	}
 
 	/**
-	 * Сохраняет статистику игр в Json.
+	 * Дописывает ход в запись игры, создавая ее при первом ходе.
+	 * Запись завершается вместе с игрой. При ошибке записи игра продолжается без нее.
 	 */
-	private void saveScores() {
-		try (Writer writer = new FileWriter(scoresFile)) {
-			GSON.toJson(scores, new TypeToken<LinkedList<PlayerScore>>() {}.getType(), writer);
+	private void recordMove(int x, int y, boolean flag) {
+		if (!recording)
+			return;
+		try {
+			if (replay == null) {
+				long startTime = System.currentTimeMillis();
+				Path file = replayDirectory.resolve(
+						String.format("%d-%016x%s", startTime, seed, ReplayWriter.FILE_EXTENSION));
+				replay = new ReplayWriter(file, new ReplayHeader(mode, game.getWidth(), game.getHeight(),
+				                                                 game.getMinesCount(), seed, nick, startTime));
+			}
+			if (flag)
+				replay.flag(x, y);
+			else
+				replay.open(x, y);
 		} catch (IOException e) {
 			e.printStackTrace();
+			recording = false;
 		}
+		if (!recording || game.isGameOver() || game.isGameWon())
+			finishReplay();
 	}
 
-	/**
-	 * Загружает статистику игр из Json.
-	 */
-	private void loadScores() {
-		if (!scoresFile.exists())
+	private void finishReplay() {
+		if (replay == null)
 			return;
-		try (Reader reader = new FileReader(scoresFile)) {
-			scores = GSON.fromJson(reader, new TypeToken<LinkedList<PlayerScore>>() {}.getType());
+		try {
+			replay.close();
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
+		replay = null;
 	}
 
-	static {
-		GsonBuilder builder = new GsonBuilder();
-		JsonDeserializer<PlayerScore> deserializer = (json, type, context) -> {
-			JsonObject object = json.getAsJsonObject();
-			String nick = object.get("nick").getAsString();
-			int square = object.get("square").getAsInt();
-			int time = object.get("time").getAsInt();
-			return new PlayerScore(nick, square, time);
-		};
-		builder.registerTypeAdapter(PlayerScore.class, deserializer);
-		builder.setPrettyPrinting();
-		GSON = builder.create();
+	/**
+	 * Останавливает отсчет времени и записывает результат в таблицу рекордов.
+	 */
+	private void recordResult() {
+		if (resultRecorded)
+			return;
+		resultRecorded = true;
+		timer.stopTimer();
+
+		RegionStats stats = game.getRegionStats();
+		scores.record(new PlayerScore(nick, game.getWidth(), game.getHeight(), game.getMinesCount(),
+		                              timer.getTimePassed(), stats.regions, stats.openings, stats.islands));
 	}
 
 }
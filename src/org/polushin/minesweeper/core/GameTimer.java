@@ -1,24 +1,61 @@
 package org.polushin.minesweeper.core;
 
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Таймер подсчета времени игры.
+ * Все таймеры обновляются общим планировщиком с небольшим фиксированным числом потоков.
  */
 public abstract class GameTimer {
 
-	private final Timer timer = new Timer(true);
+	private static final ScheduledThreadPoolExecutor SCHEDULER;
+
+	// Обновляется ли время на экране каждую секунду
+	private final boolean ticking;
 
 	private long begin;
-	private HiddenTimer timerTask;
-	private boolean run;
+	private long end;
+	private ScheduledFuture<?> tick;
+	private volatile boolean run;
+
+	protected GameTimer() {
+		this(true);
+	}
+
+	private GameTimer(boolean ticking) {
+		this.ticking = ticking;
+	}
+
+	/**
+	 * Таймер без отображения: время игры считается, но общий планировщик не используется.
+	 * Подходит для игр без интерфейса, например при симуляции.
+	 *
+	 * @return Новый таймер.
+	 */
+	public static GameTimer silent() {
+		return new GameTimer(false) {
+			@Override
+			protected void updateTimer(int currTime) {
+			}
+		};
+	}
 
 	/**
 	 * @return Пройденое время в секундах.
 	 */
-	public int getTimePassed() {
-		return begin == 0 ? 0 : (int) ((System.currentTimeMillis() - begin) / 1000);
+	public synchronized int getTimePassed() {
+		long now = run ? System.nanoTime() : end;
+		return (int) TimeUnit.NANOSECONDS.toSeconds(now - begin);
+	}
+
+	/**
+	 * @return Пройденое время в миллисекундах.
+	 */
+	synchronized long getElapsedMillis() {
+		long now = run ? System.nanoTime() : end;
+		return TimeUnit.NANOSECONDS.toMillis(now - begin);
 	}
 
 	/**
@@ -38,28 +75,60 @@ public abstract class GameTimer {
 	/**
 	 * Сбрасывает таймер.
 	 */
-	void resetTimer() {
+	synchronized void resetTimer() {
 		stopTimer();
 		run = true;
-		begin = System.currentTimeMillis();
-		timer.schedule(timerTask = new HiddenTimer(), 0, 1000);
+		begin = System.nanoTime();
+		if (ticking)
+			tick = SCHEDULER.scheduleAtFixedRate(this::tick, 0, 1, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Запускает таймер так, будто с начала игры уже прошло заданное время.
+	 *
+	 * @param elapsedMillis Время, прошедшее с начала игры, в миллисекундах.
+	 */
+	synchronized void resumeTimer(long elapsedMillis) {
+		resetTimer();
+		begin -= TimeUnit.MILLISECONDS.toNanos(elapsedMillis);
 	}
 
 	/**
 	 * Останавливает таймер.
 	 */
-	void stopTimer() {
-		if (timerTask != null)
-			timerTask.cancel();
+	synchronized void stopTimer() {
+		if (tick != null) {
+			tick.cancel(false);
+			tick = null;
+		}
+		if (run)
+			end = System.nanoTime();
 		run = false;
 	}
 
-	private class HiddenTimer extends TimerTask {
+	/**
+	 * Останавливает таймер и обнуляет время, чтобы новая игра до первого хода не показывала время прежней.
+	 */
+	synchronized void clearTimer() {
+		stopTimer();
+		begin = 0;
+		end = 0;
+	}
 
-		@Override
-		public void run() {
+	private void tick() {
+		if (run)
 			updateTimer(getTimePassed());
-		}
+	}
+
+	static {
+		int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+		SCHEDULER = new ScheduledThreadPoolExecutor(threads, task -> {
+			Thread thread = new Thread(task, "game-timer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		// Отмененные таймеры сразу удаляются из очереди, а не ждут своего срока
+		SCHEDULER.setRemoveOnCancelPolicy(true);
 	}
 
 }
@@ -0,0 +1,97 @@
+package org.polushin.minesweeper.core;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Результаты в виде массива Json объектов.
+ * Разбирается потоково, без построения промежуточного дерева.
+ * Поля размеров и сложности поля необязательны для совместимости со старыми файлами.
+ */
+final class JsonScoreCodec implements ScoreCodec {
+
+	@Override
+	public List<PlayerScore> read(InputStream in) throws IOException {
+		List<PlayerScore> scores = new ArrayList<>();
+		JsonReader reader = new JsonReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+		if (reader.peek() == JsonToken.END_DOCUMENT)
+			return scores;
+		reader.beginArray();
+		while (reader.hasNext())
+			scores.add(readScore(reader));
+		reader.endArray();
+		return scores;
+	}
+
+	@Override
+	public void write(OutputStream out, Collection<PlayerScore> scores) throws IOException {
+		JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+		writer.beginArray();
+		for (PlayerScore score : scores) {
+			writer.beginObject();
+			writer.name("nick").value(score.nick);
+			writer.name("square").value(score.square);
+			writer.name("time").value(score.time);
+			writer.name("width").value(score.width);
+			writer.name("height").value(score.height);
+			writer.name("mines").value(score.mines);
+			writer.name("threeBV").value(score.threeBV);
+			writer.name("openings").value(score.openings);
+			writer.name("islands").value(score.islands);
+			writer.endObject();
+		}
+		writer.endArray();
+		writer.flush();
+	}
+
+	private static PlayerScore readScore(JsonReader reader) throws IOException {
+		String nick = null;
+		int square = 0, time = 0, width = 0, height = 0, mines = 0;
+		int threeBV = 0, openings = 0, islands = 0;
+		reader.beginObject();
+		while (reader.hasNext())
+			switch (reader.nextName()) {
+				case "nick":
+					nick = reader.nextString();
+					break;
+				case "square":
+					square = reader.nextInt();
+					break;
+				case "time":
+					time = reader.nextInt();
+					break;
+				case "width":
+					width = reader.nextInt();
+					break;
+				case "height":
+					height = reader.nextInt();
+					break;
+				case "mines":
+					mines = reader.nextInt();
+					break;
+				case "threeBV":
+					threeBV = reader.nextInt();
+					break;
+				case "openings":
+					openings = reader.nextInt();
+					break;
+				case "islands":
+					islands = reader.nextInt();
+					break;
+				default:
+					reader.skipValue();
+			}
+		reader.endObject();
+		if (nick == null)
+			throw new IOException("Score without nick at " + reader.getPath());
+		return width == 0 ? new PlayerScore(nick, square, time) :
+		       new PlayerScore(nick, width, height, mines, time, threeBV, openings, islands);
+	}
+}
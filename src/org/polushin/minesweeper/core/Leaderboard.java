@@ -0,0 +1,133 @@
+package org.polushin.minesweeper.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Таблица рекордов, разделенная по конфигурациям поля.
+ * Внутри конфигурации результаты упорядочены каждым из порядков {@link ScoreOrder}.
+ * Не является потокобезопасной.
+ */
+public class Leaderboard {
+
+	private final Map<BoardConfig, Bucket> buckets = new HashMap<>();
+	private int size;
+
+	/**
+	 * Добавляет результат в таблицу его конфигурации.
+	 *
+	 * @param score Результат игрока.
+	 */
+	public void add(PlayerScore score) {
+		buckets.computeIfAbsent(score.getConfig(), config -> new Bucket()).add(score);
+		size++;
+	}
+
+	/**
+	 * @param config Конфигурация поля.
+	 * @param count Наибольшее кол-во результатов.
+	 *
+	 * @return Лучшие по времени результаты на полях данной конфигурации.
+	 */
+	public List<PlayerScore> getTop(BoardConfig config, int count) {
+		return getTop(config, count, ScoreOrder.TIME);
+	}
+
+	/**
+	 * @param config Конфигурация поля.
+	 * @param count Наибольшее кол-во результатов.
+	 * @param order Порядок результатов.
+	 *
+	 * @return Лучшие результаты на полях данной конфигурации.
+	 */
+	public List<PlayerScore> getTop(BoardConfig config, int count, ScoreOrder order) {
+		Bucket bucket = buckets.get(config);
+		return bucket == null ? Collections.emptyList() : bucket.rankings.get(order).scores.first(count);
+	}
+
+	/**
+	 * @param config Конфигурация поля.
+	 * @param nick Ник игрока.
+	 *
+	 * @return Место лучшего по времени результата игрока (начиная с 1) или 0, если у игрока нет результатов.
+	 */
+	public int getRank(BoardConfig config, String nick) {
+		return getRank(config, nick, ScoreOrder.TIME);
+	}
+
+	/**
+	 * @param config Конфигурация поля.
+	 * @param nick Ник игрока.
+	 * @param order Порядок результатов.
+	 *
+	 * @return Место лучшего результата игрока (начиная с 1) или 0, если у игрока нет результатов.
+	 */
+	public int getRank(BoardConfig config, String nick, ScoreOrder order) {
+		Bucket bucket = buckets.get(config);
+		if (bucket == null)
+			return 0;
+		Ranking ranking = bucket.rankings.get(order);
+		RankedTree.Node<PlayerScore> best = ranking.best.get(nick);
+		return best == null ? 0 : ranking.scores.rank(best) + 1;
+	}
+
+	/**
+	 * @return Общее кол-во результатов.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return Все результаты, сгруппированные по конфигурациям.
+	 */
+	public List<PlayerScore> toList() {
+		List<PlayerScore> result = new ArrayList<>(size);
+		for (Bucket bucket : buckets.values())
+			bucket.rankings.get(ScoreOrder.TIME).scores.forEach(result::add);
+		return result;
+	}
+
+	/**
+	 * Результаты одной конфигурации поля во всех порядках.
+	 */
+	private static final class Bucket {
+
+		final Map<ScoreOrder, Ranking> rankings = new EnumMap<>(ScoreOrder.class);
+
+		Bucket() {
+			for (ScoreOrder order : ScoreOrder.values())
+				rankings.put(order, new Ranking(order));
+		}
+
+		void add(PlayerScore score) {
+			for (Ranking ranking : rankings.values())
+				ranking.add(score);
+		}
+	}
+
+	/**
+	 * Результаты одной конфигурации поля в одном порядке.
+	 */
+	private static final class Ranking {
+
+		final RankedTree<PlayerScore> scores;
+		// Лучший результат каждого игрока
+		final Map<String, RankedTree.Node<PlayerScore>> best = new HashMap<>();
+
+		Ranking(ScoreOrder order) {
+			scores = new RankedTree<>(order.comparator);
+		}
+
+		void add(PlayerScore score) {
+			RankedTree.Node<PlayerScore> node = scores.add(score);
+			RankedTree.Node<PlayerScore> previous = best.get(score.nick);
+			if (previous == null || scores.less(node, previous))
+				best.put(score.nick, node);
+		}
+	}
+}
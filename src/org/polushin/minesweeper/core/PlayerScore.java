@@ -4,22 +4,97 @@ package org.polushin.minesweeper.core;
  * Счет игрока при победе в игре.
  */
 public class PlayerScore {
+
+	// Наибольшая длина ника в символах, от нее зависит наибольший размер записи результата
+	public static final int MAX_NICK_LENGTH = 64;
+
 	public final String nick;
 	public final int square, time;
+	public final int width, height, mines;
+	// Сложность поля: наименьшее кол-во ходов, области с пустыми клетками и без них.
+	// Равны 0, если результат сохранен без сложности поля
+	public final int threeBV, openings, islands;
+
+	/**
+	 * @param nick Ник игрока.
+	 * @param width Ширина поля игры.
+	 * @param height Высота поля игры.
+	 * @param mines Кол-во мин на поле.
+	 * @param time Время (в секундах) разрешения игры.
+	 * @param threeBV Наименьшее кол-во ходов, открывающих поле (3BV).
+	 * @param openings Кол-во областей поля, в которых есть клетка без заминированных соседей.
+	 * @param islands Кол-во областей поля, все клетки которых граничат с минами.
+	 */
+	PlayerScore(String nick, int width, int height, int mines, int time, int threeBV, int openings, int islands) {
+		this.nick = limitNick(nick);
+		this.square = width * height;
+		this.time = time;
+		this.width = width;
+		this.height = height;
+		this.mines = mines;
+		this.threeBV = threeBV;
+		this.openings = openings;
+		this.islands = islands;
+	}
 
 	/**
+	 * Результат, сохраненный без сложности поля.
+	 *
+	 * @param nick Ник игрока.
+	 * @param width Ширина поля игры.
+	 * @param height Высота поля игры.
+	 * @param mines Кол-во мин на поле.
+	 * @param time Время (в секундах) разрешения игры.
+	 */
+	PlayerScore(String nick, int width, int height, int mines, int time) {
+		this(nick, width, height, mines, time, 0, 0, 0);
+	}
+
+	/**
+	 * Результат, сохраненный без размеров поля.
+	 *
 	 * @param nick Ник игрока.
 	 * @param square Площадь поля игры.
 	 * @param time Время (в секундах) разрешения игры.
 	 */
 	PlayerScore(String nick, int square, int time) {
-		this.nick = nick;
+		this.nick = limitNick(nick);
 		this.square = square;
 		this.time = time;
+		width = height = mines = 0;
+		threeBV = openings = islands = 0;
+	}
+
+	/**
+	 * Обрезает ник до {@link #MAX_NICK_LENGTH} символов, не разрывая суррогатную пару.
+	 * Более длинные ники могли остаться только в результатах, сохраненных до ограничения.
+	 */
+	private static String limitNick(String nick) {
+		if (nick.length() <= MAX_NICK_LENGTH)
+			return nick;
+		int end = Character.isHighSurrogate(nick.charAt(MAX_NICK_LENGTH - 1)) ? MAX_NICK_LENGTH - 1 : MAX_NICK_LENGTH;
+		return nick.substring(0, end);
+	}
+
+	/**
+	 * @return Конфигурация поля, на котором получен результат.
+	 */
+	public BoardConfig getConfig() {
+		return width == 0 ? BoardConfig.UNKNOWN : new BoardConfig(width, height, mines);
+	}
+
+	/**
+	 * @return Кол-во 3BV, открытых за секунду. Игра быстрее секунды считается за секунду.
+	 */
+	public double getThreeBVPerSecond() {
+		return (double) threeBV / Math.max(time, 1);
 	}
 
 	@Override
 	public String toString() {
-		return String.format("%s — Square: %d, Time: %dsec", nick, square, time);
+		if (threeBV == 0)
+			return String.format("%s — Square: %d, Time: %dsec", nick, square, time);
+		return String.format("%s — Square: %d, Time: %dsec, 3BV: %d (%.2f/sec)", nick, square, time, threeBV,
+		                     getThreeBVPerSecond());
 	}
 }
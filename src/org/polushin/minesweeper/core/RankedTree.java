@@ -0,0 +1,160 @@
+package org.polushin.minesweeper.core;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+
+/**
+ * Упорядоченное декартово дерево с размерами поддеревьев.
+ * Вставка и поиск места элемента выполняются за O(log n) в среднем.
+ * Равные по компаратору элементы упорядочиваются по времени добавления.
+ */
+final class RankedTree<T> {
+
+	private final Comparator<? super T> comparator;
+	private final SplittableRandom priorities = new SplittableRandom(0);
+
+	private Node<T> root;
+	private long sequence;
+
+	/**
+	 * @param comparator Порядок элементов.
+	 */
+	RankedTree(Comparator<? super T> comparator) {
+		this.comparator = comparator;
+	}
+
+	/**
+	 * Добавляет элемент после всех равных ему.
+	 *
+	 * @return Узел добавленного элемента для последующих запросов места.
+	 */
+	Node<T> add(T value) {
+		Node<T> node = new Node<>(value, sequence++, priorities.nextInt());
+		root = insert(root, node);
+		return node;
+	}
+
+	/**
+	 * @return Кол-во элементов, стоящих перед узлом.
+	 */
+	int rank(Node<T> node) {
+		int rank = 0;
+		Node<T> current = root;
+		while (current != node)
+			if (less(node, current))
+				current = current.left;
+			else {
+				rank += size(current.left) + 1;
+				current = current.right;
+			}
+		return rank + size(node.left);
+	}
+
+	/**
+	 * @return Первые {@code count} элементов по порядку.
+	 */
+	List<T> first(int count) {
+		List<T> result = new ArrayList<>(Math.min(count, size()));
+		Deque<Node<T>> stack = new ArrayDeque<>();
+		Node<T> current = root;
+		while (result.size() < count && (current != null || !stack.isEmpty())) {
+			while (current != null) {
+				stack.push(current);
+				current = current.left;
+			}
+			current = stack.pop();
+			result.add(current.value);
+			current = current.right;
+		}
+		return result;
+	}
+
+	/**
+	 * Обходит все элементы по порядку.
+	 */
+	void forEach(Consumer<? super T> action) {
+		for (T value : first(size()))
+			action.accept(value);
+	}
+
+	/**
+	 * @return Кол-во элементов.
+	 */
+	int size() {
+		return size(root);
+	}
+
+	/**
+	 * @return Стоит ли первый узел раньше второго.
+	 */
+	boolean less(Node<T> a, Node<T> b) {
+		int compare = comparator.compare(a.value, b.value);
+		return compare != 0 ? compare < 0 : a.sequence < b.sequence;
+	}
+
+	private Node<T> insert(Node<T> tree, Node<T> node) {
+		if (tree == null)
+			return node;
+		if (less(node, tree)) {
+			tree.left = insert(tree.left, node);
+			if (tree.left.priority > tree.priority)
+				tree = rotateRight(tree);
+		} else {
+			tree.right = insert(tree.right, node);
+			if (tree.right.priority > tree.priority)
+				tree = rotateLeft(tree);
+		}
+		update(tree);
+		return tree;
+	}
+
+	private Node<T> rotateRight(Node<T> tree) {
+		Node<T> left = tree.left;
+		tree.left = left.right;
+		update(tree);
+		left.right = tree;
+		update(left);
+		return left;
+	}
+
+	private Node<T> rotateLeft(Node<T> tree) {
+		Node<T> right = tree.right;
+		tree.right = right.left;
+		update(tree);
+		right.left = tree;
+		update(right);
+		return right;
+	}
+
+	private static void update(Node<?> node) {
+		node.size = size(node.left) + size(node.right) + 1;
+	}
+
+	private static int size(Node<?> node) {
+		return node == null ? 0 : node.size;
+	}
+
+	/**
+	 * Узел дерева.
+	 */
+	static final class Node<T> {
+
+		final T value;
+		private final long sequence;
+		private final int priority;
+
+		private int size = 1;
+		private Node<T> left, right;
+
+		private Node(T value, long sequence, int priority) {
+			this.value = value;
+			this.sequence = sequence;
+			this.priority = priority;
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package org.polushin.minesweeper.core;
+
+import org.polushin.minesweeper.core.field.FieldSnapshot;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Файл сохраненной игры: способ генерации, ник, прошедшее время и снимок поля.
+ * Файл читается через отображение в память, а пишется одним буфером через канал: отображение на запись
+ * удерживает файл до сборки мусора, и на Windows временный файл после этого нельзя переместить.
+ * Новое сохранение сначала пишется во временный файл и затем атомарно заменяет прежнее,
+ * так что прерванная запись не портит сохранение.
+ */
+final class SavedGame {
+
+	static final int MAGIC = 'M' << 24 | 'S' << 16 | 'S' << 8 | 'V';
+	static final int VERSION = 1;
+
+	private static final int MAX_NICK_LENGTH = 1 << 16;
+
+	final BoardMode mode;
+	final String nick;
+	final long elapsedMillis;
+	final FieldSnapshot field;
+
+	SavedGame(BoardMode mode, String nick, long elapsedMillis, FieldSnapshot field) {
+		this.mode = mode;
+		this.nick = nick;
+		this.elapsedMillis = elapsedMillis;
+		this.field = field;
+	}
+
+	/**
+	 * Записывает сохранение, заменяя прежнее.
+	 *
+	 * @param file Файл сохранения.
+	 *
+	 * @throws IOException Если не удалось записать файл.
+	 */
+	void write(Path file) throws IOException {
+		byte[] nickBytes = nick.getBytes(StandardCharsets.UTF_8);
+		int size = Integer.BYTES + 2 + Long.BYTES + Integer.BYTES + nickBytes.length + field.getSize();
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(MAGIC).put((byte) VERSION).put((byte) mode.ordinal()).putLong(elapsedMillis);
+		buffer.putInt(nickBytes.length).put(nickBytes);
+		field.write(buffer);
+		buffer.flip();
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+		                                            StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+			channel.force(true);
+		}
+		Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * @param file Файл сохранения.
+	 *
+	 * @return Прочитанное сохранение.
+	 *
+	 * @throws IOException Если файл не удалось прочитать или он поврежден.
+	 */
+	static SavedGame read(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException("Saved game is too large!");
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+			if (buffer.getInt() != MAGIC)
+				throw new IOException("Not a saved game file!");
+			int version = buffer.get();
+			if (version != VERSION)
+				throw new IOException("Unsupported saved game version " + version + "!");
+			int mode = buffer.get();
+			if (mode < 0 || mode >= BoardMode.values().length)
+				throw new IOException("Unknown board mode " + mode + "!");
+			long elapsedMillis = buffer.getLong();
+			int nickLength = buffer.getInt();
+			if (nickLength < 0 || nickLength > MAX_NICK_LENGTH)
+				throw new IOException("Wrong nick length!");
+			byte[] nick = new byte[nickLength];
+			buffer.get(nick);
+			String decoded = new String(nick, StandardCharsets.UTF_8);
+			if (decoded.length() > PlayerScore.MAX_NICK_LENGTH)
+				throw new IOException("Nick is too long!");
+			return new SavedGame(BoardMode.values()[mode], decoded, elapsedMillis, FieldSnapshot.read(buffer));
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Saved game is truncated!", e);
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package org.polushin.minesweeper.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Потоковый формат файла с результатами игр.
+ */
+interface ScoreCodec {
+
+	/**
+	 * Читает результаты до конца потока.
+	 *
+	 * @param in Поток с результатами.
+	 *
+	 * @return Прочитанные результаты в порядке записи.
+	 */
+	List<PlayerScore> read(InputStream in) throws IOException;
+
+	/**
+	 * Записывает результаты в поток.
+	 *
+	 * @param out Поток для записи.
+	 * @param scores Результаты.
+	 */
+	void write(OutputStream out, Collection<PlayerScore> scores) throws IOException;
+
+	/**
+	 * @param file Файл с результатами.
+	 *
+	 * @return Формат Json для файлов {@code .json}, иначе двоичный формат.
+	 */
+	static ScoreCodec forFile(File file) {
+		return file.getName().endsWith(".json") ? new JsonScoreCodec() : new BinaryScoreCodec();
+	}
+}
@@ -0,0 +1,271 @@
+package org.polushin.minesweeper.core;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Журнал результатов игр на диске.
+ * Каждый результат дописывается в конец журнала отдельной записью {@link BinaryScoreCodec} с контрольной суммой,
+ * а накопившиеся записи периодически в фоне сворачиваются в снимок всей таблицы.
+ *
+ * Файлы журнала: {@code <base>.snapshot} - снимок, покрывающий журналы до своего поколения включительно,
+ * и {@code <base>.<поколение>.log} - журналы, записанные после снимка.
+ * Не является потокобезопасным, кроме фоновой записи снимков.
+ */
+final class ScoreJournal implements Closeable {
+
+	private static final int SNAPSHOT_MAGIC = 0x4d535353;
+	// Кол-во записей в журнале, после которого он сворачивается в снимок
+	private static final int COMPACT_THRESHOLD = 4096;
+
+	private final Path directory;
+	private final String baseName;
+	private final Path snapshot;
+	private final Pattern logPattern;
+	private final ExecutorService compactor = Executors.newSingleThreadExecutor(task -> {
+		Thread thread = new Thread(task, "score-compactor");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private long generation;
+	private FileChannel log;
+	private int logRecords;
+
+	/**
+	 * @param base Базовое имя файлов журнала.
+	 */
+	ScoreJournal(File base) {
+		Path path = base.getAbsoluteFile().toPath();
+		directory = path.getParent();
+		baseName = path.getFileName().toString();
+		snapshot = directory.resolve(baseName + ".snapshot");
+		logPattern = Pattern.compile(Pattern.quote(baseName) + "\\.(\\d+)\\.log");
+	}
+
+	/**
+	 * @return Нет ли на диске ни снимка, ни журналов.
+	 */
+	boolean isEmpty() throws IOException {
+		return !Files.exists(snapshot) && listLogs().isEmpty();
+	}
+
+	/**
+	 * Загружает снимок и все записанные после него журналы и открывает журнал для дописывания.
+	 * Поврежденный или недописанный хвост последнего журнала отбрасывается.
+	 *
+	 * @return Все сохраненные результаты в порядке записи.
+	 */
+	List<PlayerScore> load() throws IOException {
+		List<PlayerScore> scores = new ArrayList<>();
+		long covered = -1;
+		if (Files.exists(snapshot))
+			try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot)))) {
+				if (in.readInt() != SNAPSHOT_MAGIC)
+					throw new IOException("Wrong snapshot format: " + snapshot);
+				covered = in.readLong();
+				int count = in.readInt();
+				for (int i = 0; i < count; i++) {
+					PlayerScore score = BinaryScoreCodec.readRecord(in);
+					if (score == null)
+						throw new IOException("Snapshot is corrupted: " + snapshot);
+					scores.add(score);
+				}
+			}
+
+		generation = covered + 1;
+		for (long logGeneration : listLogs()) {
+			Path path = logPath(logGeneration);
+			if (logGeneration <= covered) {
+				// Журнал уже вошел в снимок, но не был удален
+				Files.deleteIfExists(path);
+				continue;
+			}
+			generation = logGeneration;
+			logRecords = readLog(path, scores);
+		}
+
+		log = FileChannel.open(logPath(generation), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+		                       StandardOpenOption.APPEND);
+		return scores;
+	}
+
+	/**
+	 * Дописывает результаты в конец журнала одной записью на диск.
+	 * Каждый результат кодируется отдельно: результат, который не удалось закодировать, пропускается
+	 * и не мешает записи остальных.
+	 */
+	void append(List<PlayerScore> scores) throws IOException {
+		ByteArrayOutputStream records = new ByteArrayOutputStream(scores.size() * 64);
+		int count = 0;
+		for (PlayerScore score : scores)
+			try {
+				records.write(BinaryScoreCodec.encodeRecord(score));
+				count++;
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		ByteBuffer buffer = ByteBuffer.wrap(records.toByteArray());
+		while (buffer.hasRemaining())
+			log.write(buffer);
+		logRecords += count;
+	}
+
+	/**
+	 * @return Накопилось ли в журнале достаточно записей для сворачивания.
+	 */
+	boolean needsCompaction() {
+		return logRecords >= COMPACT_THRESHOLD;
+	}
+
+	/**
+	 * Начинает новый журнал и в фоне записывает снимок, заменяющий все предыдущие журналы.
+	 *
+	 * @param scores Все результаты на текущий момент.
+	 */
+	void compact(List<PlayerScore> scores) throws IOException {
+		long covered = generation;
+		log.close();
+		generation++;
+		log = FileChannel.open(logPath(generation), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+		                       StandardOpenOption.APPEND);
+		logRecords = 0;
+		compactor.execute(() -> {
+			try {
+				writeSnapshot(scores, covered);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		});
+	}
+
+	/**
+	 * Записывает начальный снимок до загрузки журнала.
+	 * Используется при импорте результатов из других форматов.
+	 *
+	 * @param scores Импортируемые результаты.
+	 */
+	void importScores(List<PlayerScore> scores) throws IOException {
+		writeSnapshot(scores, -1);
+	}
+
+	/**
+	 * Дожидается записи снимков и закрывает журнал.
+	 */
+	@Override
+	public void close() throws IOException {
+		compactor.shutdown();
+		try {
+			compactor.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (log != null)
+			log.close();
+	}
+
+	/**
+	 * Атомарно заменяет снимок и удаляет вошедшие в него журналы.
+	 */
+	private void writeSnapshot(List<PlayerScore> scores, long covered) throws IOException {
+		Path temp = directory.resolve(baseName + ".snapshot.tmp");
+		try (FileOutputStream file = new FileOutputStream(temp.toFile());
+		     DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+			out.writeInt(SNAPSHOT_MAGIC);
+			out.writeLong(covered);
+			out.writeInt(scores.size());
+			for (PlayerScore score : scores)
+				out.write(BinaryScoreCodec.encodeRecord(score));
+			out.flush();
+			file.getFD().sync();
+		}
+		Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		for (long logGeneration : listLogs())
+			if (logGeneration <= covered)
+				Files.deleteIfExists(logPath(logGeneration));
+	}
+
+	/**
+	 * Читает записи журнала до конца или до первой поврежденной записи, которая отрезается.
+	 *
+	 * @return Кол-во прочитанных записей.
+	 */
+	private int readLog(Path path, List<PlayerScore> scores) throws IOException {
+		int records = 0;
+		long valid = 0;
+		try (CountingInputStream counter = new CountingInputStream(Files.newInputStream(path));
+		     DataInputStream in = new DataInputStream(counter)) {
+			PlayerScore score;
+			while ((score = BinaryScoreCodec.readRecord(in)) != null) {
+				scores.add(score);
+				records++;
+				valid = counter.count;
+			}
+		}
+		if (valid < Files.size(path))
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+				channel.truncate(valid);
+			}
+		return records;
+	}
+
+	/**
+	 * @return Поколения журналов на диске по возрастанию.
+	 */
+	private List<Long> listLogs() throws IOException {
+		List<Long> generations = new ArrayList<>();
+		if (!Files.isDirectory(directory))
+			return generations;
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, baseName + ".*.log")) {
+			for (Path file : files) {
+				Matcher matcher = logPattern.matcher(file.getFileName().toString());
+				if (matcher.matches())
+					generations.add(Long.parseLong(matcher.group(1)));
+			}
+		}
+		generations.sort(null);
+		return generations;
+	}
+
+	private Path logPath(long logGeneration) {
+		return directory.resolve(baseName + "." + logGeneration + ".log");
+	}
+
+	/**
+	 * Поток, считающий прочитанные байты.
+	 */
+	private static final class CountingInputStream extends BufferedInputStream {
+
+		long count;
+
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public synchronized int read() throws IOException {
+			int value = super.read();
+			if (value != -1)
+				count++;
+			return value;
+		}
+
+		@Override
+		public synchronized int read(byte[] b, int off, int len) throws IOException {
+			int read = super.read(b, off, len);
+			if (read > 0)
+				count += read;
+			return read;
+		}
+	}
+}
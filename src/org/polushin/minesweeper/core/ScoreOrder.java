@@ -0,0 +1,25 @@
+package org.polushin.minesweeper.core;
+
+import java.util.Comparator;
+
+/**
+ * Порядок результатов в таблице рекордов.
+ */
+public enum ScoreOrder {
+
+	/**
+	 * По времени игры, быстрые игры раньше.
+	 */
+	TIME(Comparator.comparingInt(score -> score.time)),
+
+	/**
+	 * По кол-ву 3BV в секунду, т.е. с учетом сложности поля. Результаты без сложности поля последние.
+	 */
+	THREE_BV_RATE(Comparator.comparingDouble(PlayerScore::getThreeBVPerSecond).reversed());
+
+	final Comparator<PlayerScore> comparator;
+
+	ScoreOrder(Comparator<PlayerScore> comparator) {
+		this.comparator = comparator;
+	}
+}
@@ -0,0 +1,257 @@
+package org.polushin.minesweeper.core;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Таблица рекордов, сохраняемая в журнал на диске.
+ * Может разделяться несколькими обработчиками игры, работающими в разных потоках.
+ *
+ * Результаты сразу попадают в таблицу, а в журнал записываются отдельным потоком пачками,
+ * поэтому запись рекорда не блокирует вызывающий поток на операциях с диском.
+ * Несохраненные результаты дописываются при завершении программы.
+ * Таблица без журнала хранит результаты только в памяти. Так же работает таблица, журнал которой
+ * не удалось прочитать, чтобы не перезаписать сохраненные в нем результаты.
+ */
+public class ScoreStorage {
+
+	// Наибольшее кол-во результатов, записываемых в журнал за раз
+	private static final int MAX_BATCH = 256;
+	// Признак остановки потока записи
+	private static final PlayerScore CLOSE = new PlayerScore("", 0, 0);
+
+	private final Leaderboard scores = new Leaderboard();
+	private final ScoreJournal journal;
+	// Результаты, добавленные в таблицу, но еще не записанные в журнал
+	private final BlockingQueue<PlayerScore> pending = new LinkedBlockingQueue<>();
+	private final Thread writer;
+	// Дописывает несохраненные результаты при завершении программы, если таблица не закрыта раньше
+	private final Thread shutdownHook;
+	private final Object writtenLock = new Object();
+
+	private long submitted;
+	private long written;
+	private boolean closed;
+
+	/**
+	 * При первом запуске импортирует рекорды из файла {@code <scoresFile>.json} прежнего формата.
+	 * Если журнал не удалось прочитать, результаты хранятся только в памяти.
+	 *
+	 * @param scoresFile Базовое имя файлов с предыдущими рекордами.
+	 *
+	 * @throws IllegalArgumentException Если файл равен {@code null}.
+	 */
+	public ScoreStorage(File scoresFile) {
+		if (scoresFile == null)
+			throw new IllegalArgumentException("Scores file cannot be null!");
+		journal = new ScoreJournal(scoresFile);
+		if (!loadScores(new File(scoresFile.getPath() + ".json"))) {
+			writer = null;
+			shutdownHook = null;
+			closed = true;
+			return;
+		}
+
+		writer = new Thread(this::writeScores, "score-writer");
+		writer.setDaemon(true);
+		writer.start();
+		shutdownHook = new Thread(this::close, "score-flush");
+		Runtime.getRuntime().addShutdownHook(shutdownHook);
+	}
+
+	/**
+	 * Таблица рекордов только в памяти: результаты никуда не записываются.
+	 */
+	public ScoreStorage() {
+		journal = null;
+		writer = null;
+		shutdownHook = null;
+		closed = true;
+	}
+
+	/**
+	 * @return Все результаты таблицы, например для сверки с записями игр.
+	 */
+	public synchronized List<PlayerScore> getScores() {
+		return scores.toList();
+	}
+
+	/**
+	 * @param config Конфигурация поля.
+	 * @param count Наибольшее кол-во результатов.
+	 *
+	 * @return Лучшие по времени результаты на полях данной конфигурации.
+	 */
+	public List<PlayerScore> getTop(BoardConfig config, int count) {
+		return getTop(config, count, ScoreOrder.TIME);
+	}
+
+	/**
+	 * @param config Конфигурация поля.
+	 * @param count Наибольшее кол-во результатов.
+	 * @param order Порядок результатов.
+	 *
+	 * @return Лучшие результаты на полях данной конфигурации.
+	 */
+	public synchronized List<PlayerScore> getTop(BoardConfig config, int count, ScoreOrder order) {
+		return scores.getTop(config, count, order);
+	}
+
+	/**
+	 * @param config Конфигурация поля.
+	 * @param nick Ник игрока.
+	 *
+	 * @return Место лучшего по времени результата игрока (начиная с 1) или 0, если у игрока нет результатов.
+	 */
+	public int getRank(BoardConfig config, String nick) {
+		return getRank(config, nick, ScoreOrder.TIME);
+	}
+
+	/**
+	 * @param config Конфигурация поля.
+	 * @param nick Ник игрока.
+	 * @param order Порядок результатов.
+	 *
+	 * @return Место лучшего результата игрока (начиная с 1) или 0, если у игрока нет результатов.
+	 */
+	public synchronized int getRank(BoardConfig config, String nick, ScoreOrder order) {
+		return scores.getRank(config, nick, order);
+	}
+
+	/**
+	 * Добавляет результат в таблицу рекордов и ставит его в очередь на запись в журнал.
+	 *
+	 * @param score Результат игрока.
+	 */
+	synchronized void record(PlayerScore score) {
+		scores.add(score);
+		if (closed)
+			return;
+		submitted++;
+		pending.add(score);
+	}
+
+	/**
+	 * Дожидается записи в журнал всех добавленных ранее результатов.
+	 */
+	public void flush() throws InterruptedException {
+		long target;
+		synchronized (this) {
+			target = submitted;
+		}
+		synchronized (writtenLock) {
+			while (written < target)
+				writtenLock.wait();
+		}
+	}
+
+	/**
+	 * Записывает оставшиеся результаты и закрывает журнал.
+	 * Результаты, добавленные после закрытия, не сохраняются.
+	 */
+	public void close() {
+		synchronized (this) {
+			if (closed)
+				return;
+			closed = true;
+			pending.add(CLOSE);
+		}
+		try {
+			Runtime.getRuntime().removeShutdownHook(shutdownHook);
+		} catch (IllegalStateException e) {
+			// Таблица закрывается самим обработчиком завершения программы
+		}
+		try {
+			writer.join();
+			journal.close();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Цикл потока записи: забирает из очереди накопившиеся результаты и дописывает их в журнал.
+	 */
+	private void writeScores() {
+		List<PlayerScore> batch = new ArrayList<>(MAX_BATCH);
+		while (true) {
+			try {
+				batch.add(pending.take());
+			} catch (InterruptedException e) {
+				return;
+			}
+			pending.drainTo(batch, MAX_BATCH - 1);
+			boolean close = batch.remove(CLOSE);
+			writeBatch(batch);
+			batch.clear();
+			if (close)
+				return;
+		}
+	}
+
+	private void writeBatch(List<PlayerScore> batch) {
+		int count = batch.size();
+		// Счетчик записанных продвигается при любой ошибке, иначе flush() ждал бы вечно
+		try {
+			journal.append(batch);
+			if (journal.needsCompaction()) {
+				// Под блокировкой очередь содержит ровно те результаты таблицы, которых еще нет в журнале.
+				// Результаты, добавленные после снятия копии, попадут уже в новый журнал
+				List<PlayerScore> rest = new ArrayList<>();
+				List<PlayerScore> all;
+				synchronized (this) {
+					pending.drainTo(rest);
+					all = scores.toList();
+				}
+				boolean close = rest.remove(CLOSE);
+				count += rest.size();
+				try {
+					journal.append(rest);
+					journal.compact(all);
+				} finally {
+					if (close)
+						pending.add(CLOSE);
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			e.printStackTrace();
+		} finally {
+			synchronized (writtenLock) {
+				written += count;
+				writtenLock.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Загружает статистику игр из журнала.
+	 * Если журнала еще нет, однократно импортирует статистику из файла прежнего формата.
+	 *
+	 * @param legacyFile Файл статистики, формат определяется по расширению.
+	 *
+	 * @return Загружен ли журнал и открыт ли он для дописывания.
+	 */
+	private boolean loadScores(File legacyFile) {
+		try {
+			if (journal.isEmpty() && legacyFile.exists()) {
+				try (InputStream in = new FileInputStream(legacyFile)) {
+					journal.importScores(ScoreCodec.forFile(legacyFile).read(in));
+				}
+				Files.move(legacyFile.toPath(), new File(legacyFile.getPath() + ".imported").toPath(),
+				           StandardCopyOption.REPLACE_EXISTING);
+			}
+			journal.load().forEach(scores::add);
+			return true;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		}
+	}
+}
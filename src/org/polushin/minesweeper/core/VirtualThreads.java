@@ -0,0 +1,33 @@
+package org.polushin.minesweeper.core;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Исполнители задач в виртуальных потоках.
+ * Виртуальные потоки доступны начиная с Java 21, а программа собирается для Java 11, поэтому исполнитель
+ * создается через отражение, а на более ранних версиях заменяется кэширующим пулом.
+ */
+public final class VirtualThreads {
+
+	private VirtualThreads() {
+	}
+
+	/**
+	 * @param fallbackName Имя потоков пула, заменяющего виртуальные потоки.
+	 *
+	 * @return Исполнитель, запускающий каждую задачу в своем виртуальном потоке, либо кэширующий пул
+	 * демон-потоков, если виртуальные потоки недоступны.
+	 */
+	public static ExecutorService newPerTaskExecutor(String fallbackName) {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool(task -> {
+				Thread thread = new Thread(task, fallbackName);
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+}
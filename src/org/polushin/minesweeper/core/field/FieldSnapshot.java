@@ -0,0 +1,146 @@
+package org.polushin.minesweeper.core.field;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Снимок начатой игры на поле.
+ * Мины, открытые клетки и флаги хранятся битовыми плоскостями по 64 клетки в слове, поэтому снимок
+ * записывается и читается массовым копированием слов. Кол-во заминированных соседей не хранится,
+ * а считается заново по минам. Вместо разметки областей хранится только их статистика.
+ *
+ * Снимок не зависит от поля, с которого снят, и может записываться в другом потоке, пока игра продолжается.
+ */
+public final class FieldSnapshot {
+
+	// Ширина, высота, кол-во мин, признак взрыва и статистика областей
+	private static final int HEADER_SIZE = 7 * Integer.BYTES;
+
+	final int width, height, minesCount;
+	final boolean explode;
+	final RegionStats regionStats;
+	final long[] mines, opened, flags;
+
+	FieldSnapshot(int width, int height, int minesCount, boolean explode, RegionStats regionStats, long[] mines,
+	              long[] opened, long[] flags) {
+		this.width = width;
+		this.height = height;
+		this.minesCount = minesCount;
+		this.explode = explode;
+		this.regionStats = regionStats;
+		this.mines = mines;
+		this.opened = opened;
+		this.flags = flags;
+	}
+
+	/**
+	 * @return Ширина поля.
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * @return Высота поля.
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * @return Кол-во мин.
+	 */
+	public int getMinesCount() {
+		return minesCount;
+	}
+
+	/**
+	 * @return Размер снимка в байтах.
+	 */
+	public int getSize() {
+		return HEADER_SIZE + 3 * mines.length * Long.BYTES;
+	}
+
+	/**
+	 * Записывает снимок в буфер с его текущей позиции в порядке байт буфера.
+	 *
+	 * @param buffer Буфер, в котором осталось хотя бы {@link #getSize()} байт.
+	 */
+	public void write(ByteBuffer buffer) {
+		buffer.putInt(width).putInt(height).putInt(minesCount).putInt(explode ? 1 : 0);
+		buffer.putInt(regionStats.openings).putInt(regionStats.islands).putInt(regionStats.largestRegion);
+		LongBuffer words = buffer.asLongBuffer();
+		words.put(mines).put(opened).put(flags);
+		buffer.position(buffer.position() + words.position() * Long.BYTES);
+	}
+
+	/**
+	 * Читает снимок из буфера с его текущей позиции в порядке байт буфера.
+	 *
+	 * @param buffer Буфер со снимком.
+	 *
+	 * @return Прочитанный снимок.
+	 *
+	 * @throws IOException Если снимок поврежден.
+	 */
+	public static FieldSnapshot read(ByteBuffer buffer) throws IOException {
+		if (buffer.remaining() < HEADER_SIZE)
+			throw new IOException("Field snapshot is truncated!");
+		int width = buffer.getInt(), height = buffer.getInt(), minesCount = buffer.getInt();
+		boolean explode = buffer.getInt() != 0;
+		int openings = buffer.getInt(), islands = buffer.getInt(), largestRegion = buffer.getInt();
+		if (width <= 0 || height <= 0 || (long) width * height > MineField.MAX_CELLS)
+			throw new IOException("Wrong field size in snapshot!");
+		int cells = width * height;
+		if (openings < 0 || islands < 0 || largestRegion < 0 || (long) openings + islands > cells
+		    || largestRegion > cells)
+			throw new IOException("Wrong region stats in snapshot!");
+		int length = (int) ((cells + 63L) >>> 6);
+		if (buffer.remaining() < 3L * length * Long.BYTES)
+			throw new IOException("Field snapshot is truncated!");
+
+		long[] mines = new long[length], opened = new long[length], flags = new long[length];
+		LongBuffer words = buffer.asLongBuffer();
+		words.get(mines).get(opened).get(flags);
+		buffer.position(buffer.position() + words.position() * Long.BYTES);
+
+		// Биты за пределами поля должны быть пусты, а кол-во мин совпадать с заголовком
+		long tail = cells % 64 == 0 ? 0 : -1L << cells;
+		if (((mines[length - 1] | opened[length - 1] | flags[length - 1]) & tail) != 0)
+			throw new IOException("Field snapshot has cells out of field!");
+		int counted = 0;
+		for (long word : mines)
+			counted += Long.bitCount(word);
+		if (counted != minesCount || minesCount >= cells)
+			throw new IOException("Wrong mines count in snapshot!");
+		return new FieldSnapshot(width, height, minesCount, explode, new RegionStats(openings, islands, largestRegion),
+		                         mines, opened, flags);
+	}
+
+	/**
+	 * Восстанавливает поле из снимка.
+	 *
+	 * @return Новое поле в состоянии на момент снимка.
+	 */
+	public MineField restore() {
+		MineField field = new RestoredField(width, height);
+		field.restore(this);
+		return field;
+	}
+
+	/**
+	 * Поле, мины которого уже расставлены снимком.
+	 */
+	private static final class RestoredField extends MineField {
+
+		RestoredField(int width, int height) {
+			super(width, height);
+		}
+
+		@Override
+		protected void generate(int startX, int startY) {
+			throw new IllegalStateException("Restored field is already generated.");
+		}
+	}
+}
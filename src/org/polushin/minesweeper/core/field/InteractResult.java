@@ -1,35 +1,77 @@
 package org.polushin.minesweeper.core.field;
 
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.Set;
+import java.util.NoSuchElementException;
 
 /**
  * Результат взаимодействия с полем.
- * Хранит изменившиеся клетки.
+ * Хранит индексы изменившихся клеток в примитивном буфере, а если изменилась большая часть поля,
+ * то только битовое множество, размер которого не зависит от кол-ва изменений.
+ * Один объект результата переиспользуется полем между ходами и действителен до следующего хода.
  */
 public class InteractResult implements Iterable<Cell> {
 
-	private final Set<Cell> changed = new HashSet<>();
-	private final boolean explode;
+	private final MineField field;
+	// Битовое множество уже добавленных клеток
+	private final long[] added;
+
+	private int[] changed = new int[16];
+	private int size;
+	// Индексы больше не записываются в буфер, результат читается из битового множества
+	private boolean dense;
+	private boolean all;
+	private boolean explode;
 
 	/**
-	 * @param isExplode Произошел ли взрыв в результате данного действия.
+	 * @param field Поле, к которому относится результат.
 	 */
-	InteractResult(boolean isExplode) {
+	InteractResult(MineField field) {
+		this.field = field;
+		added = new long[(field.getWidth() * field.getHeight() + 63) >>> 6];
+	}
+
+	/**
+	 * Очищает результат перед новым ходом.
+	 *
+	 * @param isExplode Произошел ли взрыв в результате нового действия.
+	 */
+	void reset(boolean isExplode) {
+		if (dense)
+			Arrays.fill(added, 0);
+		else
+			for (int i = 0; i < size; i++)
+				added[changed[i] >>> 6] = 0;
+		size = 0;
+		dense = false;
+		all = false;
 		explode = isExplode;
 	}
 
 	/**
-	 * @param init Первая добавляемая клетка.
+	 * Добавляет клетку в результат, если ее там еще нет.
+	 *
+	 * @param index Индекс клетки на поле.
 	 */
-	InteractResult(Cell init) {
-		explode = false;
-		changed.add(init);
+	void addCell(int index) {
+		if (all || (added[index >>> 6] & 1L << index) != 0)
+			return;
+		added[index >>> 6] |= 1L << index;
+		if (!dense && size == added.length * 2)
+			dense = true;
+		if (!dense) {
+			if (size == changed.length)
+				changed = Arrays.copyOf(changed, size * 2);
+			changed[size] = index;
+		}
+		size++;
 	}
 
-	void addCell(Cell cell) {
-		changed.add(cell);
+	/**
+	 * Отмечает изменившимися все клетки поля.
+	 */
+	void addAll() {
+		all = true;
 	}
 
 	/**
@@ -39,6 +81,13 @@ public class InteractResult implements Iterable<Cell> {
 		return explode;
 	}
 
+	/**
+	 * @return Кол-во изменившихся клеток.
+	 */
+	public int size() {
+		return all ? field.getWidth() * field.getHeight() : size;
+	}
+
 	@Override
 	public Iterator<Cell> iterator() {
 		return new ResultIterator();
@@ -49,16 +98,39 @@ public class InteractResult implements Iterable<Cell> {
 	 */
 	private final class ResultIterator implements Iterator<Cell> {
 
-		private final Iterator<Cell> iterator = changed.iterator();
+		private final int count = size();
+		private int position;
+		// Последний выданный индекс в режиме обхода битового множества
+		private int index = -1;
 
 		@Override
 		public boolean hasNext() {
-			return iterator.hasNext();
+			return position < count;
 		}
 
 		@Override
 		public Cell next() {
-			return iterator.next();
+			if (!hasNext())
+				throw new NoSuchElementException();
+			if (all)
+				index = position;
+			else if (dense)
+				index = nextAdded(index + 1);
+			else
+				index = changed[position];
+			position++;
+			return new Cell(field, index / field.getHeight(), index % field.getHeight());
+		}
+
+		/**
+		 * @return Первый индекс из битового множества, не меньший заданного.
+		 */
+		private int nextAdded(int from) {
+			int word = from >>> 6;
+			long bits = added[word] & -1L << from;
+			while (bits == 0)
+				bits = added[++word];
+			return (word << 6) + Long.numberOfTrailingZeros(bits);
 		}
 	}
 }
@@ -1,27 +1,72 @@
 package org.polushin.minesweeper.core.field;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
 /**
  * Поле игры.
+ * Состояние каждой клетки упаковано в один байт массива, индексируемого по {@code x * height + y}.
+ *
+ * Ход на клетку без мины открывает всю связную по сторонам область клеток без мин. Области размечаются
+ * один раз при генерации и хранятся кольцевыми списками, поэтому ход обходит только клетки своей области.
+ * Поле, восстановленное из {@link FieldSnapshot снимка}, не размечает области заново: открытые области уже
+ * открыты целиком, а закрытые открываются обходом соседей.
  */
 public abstract class MineField {
 
-	protected final Cell[][] field;
+	// Наибольшее кол-во клеток поля, ограниченное размером массива
+	public static final int MAX_CELLS = Integer.MAX_VALUE - 8;
+
+	// Младшие четыре бита - кол-во заминированных соседей (от 0 до 8)
+	private static final int NEIGHBORS_MASK = 0x0f;
+	private static final int MINE = 0x10;
+	private static final int OPENED = 0x20;
+	private static final int FLAG = 0x40;
+
+	// Байтовое представление поля читается и пишется по восемь клеток за раз
+	private static final VarHandle CELLS_AS_LONGS = MethodHandles.byteArrayViewVarHandle(long[].class,
+	                                                                                     ByteOrder.LITTLE_ENDIAN);
+	// Раскладывает биты байта по младшим битам восьми байт: бит i попадает в байт i
+	private static final long[] SPREAD = new long[256];
+
+	private final int width, height;
+	private final byte[] cells;
+	private final InteractResult result;
 	protected int minesCount;
 
+	// Следующая клетка той же области: области замкнуты в кольца, клетка с миной ссылается на себя.
+	// Равен null у восстановленного из снимка поля
+	private int[] nextInRegion;
+	private RegionStats regionStats;
+	// Стек обхода при открытии областей восстановленного поля
+	private int[] fillStack = new int[16];
+
+	private boolean generated;
 	private boolean explode;
 	private boolean isWon;
 	private int flags;
+	// Кол-во клеток, которые не открыты и не помечены флагом
+	private int hiddenCells;
 
 	/**
 	 * @param width Ширина поля.
 	 * @param height Высота поля.
 	 *
-	 * @throws IllegalArgumentException Если ширина или высота не положительные.
+	 * @throws IllegalArgumentException Если ширина или высота не положительные или поле больше
+	 * {@link #MAX_CELLS} клеток.
 	 */
 	public MineField(int width, int height) {
 		if (width <= 0 || height <= 0)
 			throw new IllegalArgumentException("Width and height must be greater than zero!");
-		field = new Cell[width][height];
+		if ((long) width * height > MAX_CELLS)
+			throw new IllegalArgumentException("Field cannot have more than " + MAX_CELLS + " cells!");
+		this.width = width;
+		this.height = height;
+		cells = new byte[width * height];
+		hiddenCells = cells.length;
+		result = new InteractResult(this);
 	}
 
 	/**
@@ -38,12 +83,23 @@ public abstract class MineField {
 	 * @return Клетку на заданной позиции.
 	 */
 	public Cell getCell(int posX, int posY) {
-		Cell cell = field[posX][posY];
-		if (cell == null) {
+		if (!generated)
 			init(posX, posY);
-			cell = field[posX][posY];
-		}
-		return cell;
+		return new Cell(this, posX, posY);
+	}
+
+	/**
+	 * @return Сгенерировано ли поле, т.е. был ли сделан первый ход.
+	 */
+	public boolean isGenerated() {
+		return generated;
+	}
+
+	/**
+	 * @return Статистику областей поля или {@code null}, если первый ход еще не сделан.
+	 */
+	public RegionStats getRegionStats() {
+		return regionStats;
 	}
 
 	/**
@@ -55,14 +111,10 @@ public abstract class MineField {
 		if (explode)
 			return false;
 
-		if (field[0][0] == null)
+		if (!generated)
 			return false;
 
-		for (Cell[] line : field)
-			for (Cell cell : line)
-				if (!cell.isOpened() && !cell.isFlagSet())
-					return false;
-		return isWon = true;
+		return isWon = hiddenCells == 0;
 	}
 
 	/**
@@ -76,14 +128,14 @@ public abstract class MineField {
 	 * @return Ширина поля.
 	 */
 	public int getWidth() {
-		return field.length;
+		return width;
 	}
 
 	/**
 	 * @return Высота поля.
 	 */
 	public int getHeight() {
-		return field[0].length;
+		return height;
 	}
 
 	/**
@@ -95,6 +147,7 @@ public abstract class MineField {
 
 	/**
 	 * Генерирует мины на поле с учетом первого хода игрока.
+	 * Должна расставить {@link #minesCount} мин через {@link #placeMine(int)}, не занимая клетку первого хода.
 	 *
 	 * @param startX Первый ход игрока по X.
 	 * @param startY Первый ход игрока по Y.
@@ -102,17 +155,300 @@ public abstract class MineField {
 	protected abstract void generate(int startX, int startY);
 
 	/**
-	 * Обновляет соседей клетки при ее открытии.
+	 * @param x Позиция по X.
+	 * @param y Позиция по Y.
+	 *
+	 * @return Индекс клетки в плоском представлении поля.
+	 */
+	protected final int index(int x, int y) {
+		return x * height + y;
+	}
+
+	/**
+	 * Устанавливает мину на клетку.
+	 *
+	 * @param index Индекс клетки.
+	 */
+	protected final void placeMine(int index) {
+		cells[index] |= MINE;
+	}
+
+	/**
+	 * @param index Индекс клетки.
+	 *
+	 * @return Установлена ли на клетке мина.
+	 */
+	protected final boolean hasMine(int index) {
+		return (cells[index] & MINE) != 0;
+	}
+
+	/**
+	 * @return Кол-во заминированных соседей клетки.
+	 */
+	int getMineNeighbors(int index) {
+		return cells[index] & NEIGHBORS_MASK;
+	}
+
+	/**
+	 * @return Индекс следующей клетки той же области или самой клетки, если на ней мина.
+	 */
+	int nextInRegion(int index) {
+		return nextInRegion[index];
+	}
+
+	/**
+	 * @return Открыта ли клетка.
+	 */
+	boolean isOpened(int index) {
+		return (cells[index] & OPENED) != 0;
+	}
+
+	/**
+	 * @return Установлен ли на клетку флаг.
+	 */
+	boolean isFlagSet(int index) {
+		return (cells[index] & FLAG) != 0;
+	}
+
+	/**
+	 * @return Открыта ли клетка и установлена ли на ней мина.
+	 */
+	boolean isOpenedMine(int index) {
+		return (cells[index] & (OPENED | MINE)) == (OPENED | MINE);
+	}
+
+	/**
+	 * @return Отмечена ли клетка как переполненная.
+	 */
+	boolean isFlagsOverflow(int x, int y) {
+		int cell = cells[index(x, y)];
+		if ((cell & (OPENED | MINE)) != OPENED)
+			return false;
+
+		int nearFlags = 0;
+		for (int i = x - 1; i <= x + 1; i++)
+			if (i >= 0 && i < width)
+				for (int j = y - 1; j <= y + 1; j++)
+					if (j >= 0 && j < height && isFlagSet(index(i, j)))
+						nearFlags++;
+		return nearFlags > (cell & NEIGHBORS_MASK);
+	}
+
+	/**
+	 * Открывает клетку.
+	 *
+	 * @return Результат взаимодействия с полем.
+	 */
+	InteractResult open(int x, int y) {
+		int index = index(x, y);
+		result.reset(false);
+		if (isOpened(index))
+			return result;
+		if (hasMine(index))
+			return explosion();
+		if (!isFlagSet(index))
+			hiddenCells--;
+		cells[index] = (byte) (cells[index] & ~FLAG | OPENED);
+		result.addCell(index);
+		if (nextInRegion != null)
+			openRegion(index);
+		else
+			fillRegion(index);
+		return result;
+	}
+
+	/**
+	 * Устанавливает или удаляет флаг на клетке.
+	 *
+	 * @return Результат взаимодействия с полем.
+	 */
+	InteractResult changeFlagSet(int x, int y) {
+		result.reset(isGameOver());
+		if (isGameOver())
+			return result;
+		int index = index(x, y);
+		if (isOpened(index) || isGameWon())
+			return result;
+		cells[index] ^= FLAG;
+		hiddenCells += isFlagSet(index) ? -1 : 1;
+		result.addCell(index);
+		updateNearestFlags(x, y);
+		return result;
+	}
+
+	/**
+	 * Снимает состояние начатой игры.
+	 *
+	 * @return Снимок поля.
+	 *
+	 * @throws IllegalStateException Если первый ход еще не сделан.
+	 */
+	public FieldSnapshot snapshot() {
+		if (!generated)
+			throw new IllegalStateException("Field is not generated yet.");
+		int length = (cells.length + 63) >>> 6;
+		long[] mines = new long[length], opened = new long[length], flagged = new long[length];
+		for (int base = 0; base < cells.length; base += Long.BYTES) {
+			long eight = readCells(base);
+			int word = base >>> 6, shift = base & 63;
+			mines[word] |= gather(eight >>> 4) << shift;
+			opened[word] |= gather(eight >>> 5) << shift;
+			flagged[word] |= gather(eight >>> 6) << shift;
+		}
+		return new FieldSnapshot(width, height, minesCount, explode, regionStats, mines, opened, flagged);
+	}
+
+	/**
+	 * Восстанавливает состояние нового поля того же размера из снимка.
+	 * Кол-во заминированных соседей считается заново по минам.
 	 */
-	void updateNearestCells(InteractResult result, int x, int y) {
-		if (x != 0)
-			field[x - 1][y].tryToOpen(result);
-		if (x + 1 != getWidth())
-			field[x + 1][y].tryToOpen(result);
-		if (y != 0)
-			field[x][y - 1].tryToOpen(result);
-		if (y + 1 != getHeight())
-			field[x][y + 1].tryToOpen(result);
+	void restore(FieldSnapshot snapshot) {
+		minesCount = snapshot.minesCount;
+		explode = snapshot.explode;
+		regionStats = snapshot.regionStats;
+		generated = true;
+		for (int base = 0; base < cells.length; base += Long.BYTES) {
+			int word = base >>> 6, shift = base & 63;
+			long eight = SPREAD[(int) (snapshot.mines[word] >>> shift) & 0xff] << 4
+			             | SPREAD[(int) (snapshot.opened[word] >>> shift) & 0xff] << 5
+			             | SPREAD[(int) (snapshot.flags[word] >>> shift) & 0xff] << 6;
+			if (eight != 0)
+				writeCells(base, eight);
+		}
+
+		int covered = 0;
+		for (int word = 0; word < snapshot.flags.length; word++) {
+			flags += Long.bitCount(snapshot.flags[word]);
+			covered += Long.bitCount(snapshot.opened[word] | snapshot.flags[word]);
+		}
+		hiddenCells = cells.length - covered;
+		countNeighbors();
+	}
+
+	/**
+	 * Считает кол-во заминированных соседей всех клеток без мин построчно по восемь клеток за раз,
+	 * не обходя каждую мину отдельно. Для строки в буфере копятся суммы мин по столбцу из трех соседних строк,
+	 * а сумма соседей клетки складывается из трех соседних сумм буфера. Суммы не больше девяти,
+	 * поэтому байты складываются без переносов.
+	 */
+	private void countNeighbors() {
+		// Суммы сдвинуты на одну позицию, крайние позиции нулевые, а запас в конце позволяет писать по восемь сумм
+		byte[] columns = new byte[height + 2 + Long.BYTES];
+		for (int x = 0, row = 0; x < width; x++, row += height) {
+			for (int y = 0; y < height; y += Long.BYTES) {
+				long sum = mineBits(readCells(row + y));
+				if (x > 0)
+					sum += mineBits(readCells(row - height + y));
+				if (x < width - 1)
+					sum += mineBits(readCells(row + height + y));
+				CELLS_AS_LONGS.set(columns, y + 1, sum);
+			}
+			// Последние суммы могли захватить клетки следующей строки
+			Arrays.fill(columns, height + 1, columns.length, (byte) 0);
+
+			for (int y = 0; y < height; y += Long.BYTES) {
+				long eight = readCells(row + y);
+				long count = (long) CELLS_AS_LONGS.get(columns, y) + (long) CELLS_AS_LONGS.get(columns, y + 1)
+				             + (long) CELLS_AS_LONGS.get(columns, y + 2);
+				// Клетки с минами не хранят кол-во соседей, а клетки следующей строки не изменяются
+				count &= ~(mineBits(eight) * 0xff);
+				if (height - y < Long.BYTES)
+					count &= -1L >>> (Long.BYTES - (height - y)) * Byte.SIZE;
+				writeCells(row + y, eight | count);
+			}
+		}
+	}
+
+	/**
+	 * @return Младшие биты байт, равные единице у клеток с минами.
+	 */
+	private static long mineBits(long eight) {
+		return eight >>> 4 & 0x0101010101010101L;
+	}
+
+	/**
+	 * @return Восемь клеток, начиная с заданной, по байту на клетку. Клетки за концом поля равны нулю.
+	 */
+	private long readCells(int base) {
+		if (base + Long.BYTES <= cells.length)
+			return (long) CELLS_AS_LONGS.get(cells, base);
+		long eight = 0;
+		for (int i = base; i < cells.length; i++)
+			eight |= (cells[i] & 0xffL) << (i - base) * 8;
+		return eight;
+	}
+
+	/**
+	 * Записывает восемь клеток, начиная с заданной, отбрасывая клетки за концом поля.
+	 */
+	private void writeCells(int base, long eight) {
+		if (base + Long.BYTES <= cells.length)
+			CELLS_AS_LONGS.set(cells, base, eight);
+		else
+			for (int i = base; i < cells.length; i++)
+				cells[i] = (byte) (eight >>> (i - base) * 8);
+	}
+
+	/**
+	 * Собирает младшие биты восьми байт в один байт: бит байта i попадает в бит i.
+	 * После маски у каждого байта остается один бит, и умножение сдвигает бит байта i в бит 56 + i
+	 * без переносов, так как все слагаемые произведения попадают в разные биты.
+	 */
+	private static long gather(long eight) {
+		return (eight & 0x0101010101010101L) * 0x0102040810204080L >>> 56;
+	}
+
+	/**
+	 * Открывает остальные клетки области обходом соседей без мин.
+	 * Используется полем, восстановленным из снимка: его закрытые области еще не открывались целиком,
+	 * поэтому все клетки без мин, достижимые от открытой клетки, закрыты.
+	 */
+	private void fillRegion(int start) {
+		int size = 0;
+		fillStack[size++] = start;
+		while (size > 0) {
+			int index = fillStack[--size];
+			int x = index / height, y = index % height;
+			if (x > 0)
+				size = fillCell(index - height, size);
+			if (x < width - 1)
+				size = fillCell(index + height, size);
+			if (y > 0)
+				size = fillCell(index - 1, size);
+			if (y < height - 1)
+				size = fillCell(index + 1, size);
+		}
+	}
+
+	/**
+	 * Открывает закрытую клетку без мины и добавляет ее в стек обхода.
+	 *
+	 * @return Новый размер стека.
+	 */
+	private int fillCell(int index, int size) {
+		if ((cells[index] & (MINE | OPENED)) != 0)
+			return size;
+		if (!isFlagSet(index))
+			hiddenCells--;
+		cells[index] |= OPENED;
+		result.addCell(index);
+		if (size == fillStack.length)
+			fillStack = Arrays.copyOf(fillStack, size * 2);
+		fillStack[size] = index;
+		return size + 1;
+	}
+
+	/**
+	 * Открывает остальные клетки области открытой клетки.
+	 * Области открываются целиком, поэтому остальные клетки области еще закрыты.
+	 */
+	private void openRegion(int start) {
+		for (int index = nextInRegion[start]; index != start; index = nextInRegion[index]) {
+			if (!isFlagSet(index))
+				hiddenCells--;
+			cells[index] |= OPENED;
+			result.addCell(index);
+		}
 	}
 
 	/**
@@ -120,35 +456,26 @@ public abstract class MineField {
 	 *
 	 * @return Все клетки поля.
 	 */
-	InteractResult explosion() {
+	private InteractResult explosion() {
 		explode = true;
-		InteractResult result = new InteractResult(true);
-		for (Cell[] line : field)
-			for (Cell cell : line) {
-				cell.openExactly();
-				result.addCell(cell);
-			}
+		result.reset(true);
+		for (int i = 0; i < cells.length; i++)
+			cells[i] |= OPENED;
+		result.addAll();
 		return result;
 	}
 
 	/**
-	 * Обновляет счетчики флагов у соседних клеток.
-	 *
-	 * @param cell Изменившаясяя клетка.
-	 */
-	void updateNearestFlags(Cell cell, InteractResult result) {
-		flags += cell.isFlagSet() ? 1 : -1;
-
-		for (int i = cell.posX - 1; i <= cell.posX + 1; i++)
-			if (i >= 0 && i < getWidth())
-				for (int j = cell.posY - 1; j <= cell.posY + 1; j++)
-					if (j >= 0 && j < getHeight()) {
-						if (cell.isFlagSet())
-							field[i][j].addNearFlag();
-						else
-							field[i][j].removeNearFlag();
-						result.addCell(field[i][j]);
-					}
+	 * Обновляет счетчики флагов и добавляет соседние клетки в результат.
+	 */
+	private void updateNearestFlags(int x, int y) {
+		flags += isFlagSet(index(x, y)) ? 1 : -1;
+
+		for (int i = x - 1; i <= x + 1; i++)
+			if (i >= 0 && i < width)
+				for (int j = y - 1; j <= y + 1; j++)
+					if (j >= 0 && j < height)
+						result.addCell(index(i, j));
 	}
 
 	/**
@@ -156,30 +483,118 @@ public abstract class MineField {
 	 */
 	private void init(int startX, int startY) {
 		generate(startX, startY);
+		generated = true;
 
-		// Омечаем кол-во соседей
-		for (int i = 0; i < field.length; i++)
-			for (int j = 0; j < field[i].length; j++)
-				field[i][j].setMineNeighbors(countMinesAround(i, j));
+		// Омечаем кол-во соседей: каждая мина увеличивает счетчики соседних клеток без мин
+		for (int i = 0; i < width; i++)
+			for (int j = 0; j < height; j++)
+				if (hasMine(index(i, j)))
+					countMineAround(i, j);
+		labelRegions();
 	}
 
 	/**
-	 * Подсчитывает кол-во мин вокруг клетки.
-	 * Если на клетке уже есть мина, будет возвращено 0.
+	 * Размечает области клеток без мин системой непересекающихся множеств, замыкает каждую область в кольцо
+	 * и считает статистику областей. Корень множества - клетка области с наименьшим индексом.
+	 * Сводка области в ячейке корня: {@code ~(размер << 1 | есть ли клетка без заминированных соседей)}.
 	 */
-	private int countMinesAround(int x, int y) {
-		if (field[x][y].mine)
-			return 0;
+	private void labelRegions() {
+		// Клетки обходятся по возрастанию индекса и присоединяются к уже обойденным соседям сверху и слева
+		int[] parent = new int[cells.length];
+		for (int x = 0, index = 0; x < width; x++)
+			for (int y = 0; y < height; y++, index++) {
+				int root = index;
+				if (!hasMine(index)) {
+					if (y != 0 && !hasMine(index - 1))
+						root = find(parent, index - 1);
+					if (x != 0 && !hasMine(index - height)) {
+						int up = find(parent, index - height);
+						if (up < root) {
+							if (root != index)
+								parent[root] = up;
+							root = up;
+						} else if (up > root)
+							parent[up] = root;
+					}
+				}
+				parent[index] = root;
+			}
+
+		// Родитель клетки всегда имеет меньший индекс, поэтому к моменту обхода клетки путь ее родителя уже сжат.
+		// Корень встречается раньше остальных клеток области, клетки вставляются в кольцо сразу после корня
+		nextInRegion = new int[cells.length];
+		for (int index = 0; index < cells.length; index++) {
+			int root = parent[index] = parent[parent[index]];
+			if (root == index)
+				nextInRegion[index] = index;
+			else {
+				nextInRegion[index] = nextInRegion[root];
+				nextInRegion[root] = index;
+			}
+		}
 
-		int around = 0;
+		// Ячейка корня читается только при обходе самого корня, после этого в ней копится сводка области.
+		// Подряд идущие клетки одной области сначала суммируются в локальных переменных
+		int current = -1, size = 0, empty = 0;
+		for (int index = 0; index < cells.length; index++) {
+			if (hasMine(index))
+				continue;
+			int root = parent[index];
+			if (root != current) {
+				if (current >= 0)
+					parent[current] = ~(~parent[current] + (size << 1) | empty);
+				if (root == index)
+					parent[root] = ~0;
+				current = root;
+				size = empty = 0;
+			}
+			size++;
+			if (getMineNeighbors(index) == 0)
+				empty = 1;
+		}
+		if (current >= 0)
+			parent[current] = ~(~parent[current] + (size << 1) | empty);
 
-		for (int i = x - 1; i <= x + 1; i++)
-			if (i >= 0 && i < getWidth())
-				for (int j = y - 1; j <= y + 1; j++)
-					if (j >= 0 && j < getHeight())
-						around += field[i][j].mine ? 1 : 0;
+		int openings = 0, islands = 0, largest = 0;
+		for (int summary : parent)
+			if (summary < 0) {
+				if ((~summary & 1) != 0)
+					openings++;
+				else
+					islands++;
+				largest = Math.max(largest, ~summary >>> 1);
+			}
+		regionStats = new RegionStats(openings, islands, largest);
+	}
+
+	/**
+	 * @return Корень множества клетки, путь до корня сокращается вдвое.
+	 */
+	private static int find(int[] parent, int index) {
+		while (parent[index] != index) {
+			parent[index] = parent[parent[index]];
+			index = parent[index];
+		}
+		return index;
+	}
+
+	/**
+	 * Увеличивает кол-во заминированных соседей у клеток без мин вокруг мины.
+	 */
+	private void countMineAround(int x, int y) {
+		for (int i = Math.max(x - 1, 0); i <= Math.min(x + 1, width - 1); i++)
+			for (int j = Math.max(y - 1, 0); j <= Math.min(y + 1, height - 1); j++) {
+				int index = index(i, j);
+				if (!hasMine(index))
+					cells[index]++;
+			}
+	}
 
-		return around;
+	static {
+		for (int value = 0; value < SPREAD.length; value++)
+			for (int bit = 0; bit < Byte.SIZE; bit++)
+				if ((value & 1 << bit) != 0)
+					SPREAD[value] |= 1L << bit * Byte.SIZE;
 	}
 
 }
@@ -0,0 +1,119 @@
+package org.polushin.minesweeper.core.field;
+
+import java.util.BitSet;
+
+/**
+ * Расстановка мин, сгенерированная заранее, до первого хода игрока.
+ * Хранит клетки, с которых может быть сделан первый ход, чтобы расстановка оставалась корректной.
+ */
+public final class MineLayout {
+
+	private final int width, height, minesCount;
+	private final BitSet mines;
+	private final BitSet starts;
+
+	private MineLayout(int width, int height, int minesCount, BitSet mines, BitSet starts) {
+		this.width = width;
+		this.height = height;
+		this.minesCount = minesCount;
+		this.mines = mines;
+		this.starts = starts;
+	}
+
+	/**
+	 * Генерирует поле первым ходом на заданной клетке и запоминает расстановку его мин.
+	 *
+	 * @param field Поле, которое еще не было сгенерировано.
+	 * @param startX Первый ход по X.
+	 * @param startY Первый ход по Y.
+	 * @param anySafeStart Может ли первый ход быть сделан с любой клетки без мины.
+	 * Иначе первым ходом допустима только клетка области, открываемой ходом на заданную клетку.
+	 *
+	 * @return Расстановку мин поля.
+	 *
+	 * @throws IllegalArgumentException Если поле уже сгенерировано.
+	 */
+	public static MineLayout of(MineField field, int startX, int startY, boolean anySafeStart) {
+		if (field.isGenerated())
+			throw new IllegalArgumentException("Field is already generated!");
+		field.getCell(startX, startY);
+
+		int cells = field.getWidth() * field.getHeight();
+		BitSet mines = new BitSet(cells);
+		for (int index = 0; index < cells; index++)
+			if (field.hasMine(index))
+				mines.set(index);
+
+		BitSet starts;
+		if (anySafeStart) {
+			starts = (BitSet) mines.clone();
+			starts.flip(0, cells);
+		} else
+			starts = openedRegion(field, field.index(startX, startY));
+		return new MineLayout(field.getWidth(), field.getHeight(), field.getMinesCount(), mines, starts);
+	}
+
+	/**
+	 * @return Ширина поля.
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * @return Высота поля.
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * @return Кол-во мин.
+	 */
+	public int getMinesCount() {
+		return minesCount;
+	}
+
+	/**
+	 * @return Стоит ли мина на клетке.
+	 */
+	public boolean isMine(int x, int y) {
+		return mines.get(x * height + y);
+	}
+
+	/**
+	 * @param index Индекс клетки в плоском представлении поля, с которой начинается поиск.
+	 *
+	 * @return Индекс первой клетки с миной, начиная с заданной, или -1, если таких клеток нет.
+	 */
+	public int nextMine(int index) {
+		return mines.nextSetBit(index);
+	}
+
+	/**
+	 * @return Допустим ли первый ход на клетку.
+	 */
+	public boolean isStart(int x, int y) {
+		return starts.get(x * height + y);
+	}
+
+	/**
+	 * @return Кол-во клеток поля.
+	 */
+	public int getCellsCount() {
+		return width * height;
+	}
+
+	/**
+	 * Клетки, открываемые ходом на стартовую клетку: ход на любую из них открывает ту же область.
+	 */
+	private static BitSet openedRegion(MineField field, int start) {
+		BitSet region = new BitSet(field.getWidth() * field.getHeight());
+		int index = start;
+		do {
+			region.set(index);
+			index = field.nextInRegion(index);
+		} while (index != start);
+		return region;
+	}
+}
@@ -48,32 +48,27 @@ public class RandomMinesGenerator extends MineField {
 		random = new Random(seed);
 	}
 
+	/**
+	 * Выбирает клетки для мин алгоритмом Флойда среди всех клеток поля, кроме первого хода.
+	 * Каждая расстановка равновероятна, а время работы пропорционально кол-ву мин.
+	 */
 	@Override
 	protected void generate(int startX, int startY) {
-		field[startX][startY] = new Cell(this, startX, startY, Cell.EMPTY);
-
-		for (int placed = 0; placed < minesCount; placed++) {
-			int x = random.nextInt(getWidth());
-			int y = random.nextInt(getHeight());
-			if (field[x][y] != null) // Клетка не пуста, ищем ближайшую пустую
-				while (true) {
-					if (field[x][y] == null) // Нашли пустую клетку
-						break;
+		int start = index(startX, startY);
+		int candidates = getWidth() * getHeight() - 1;
 
-					y++;
-					if (y == getHeight()) { // Конец столбцов, переходим на следующую строку
-						y = 0;
-						if (++x == getWidth()) // Конец строк, начинаем по кругу
-							x = 0;
-					}
-				}
-			field[x][y] = new Cell(this, x, y, Cell.MINE);
+		for (int bound = candidates - minesCount; bound < candidates; bound++) {
+			int index = skipStart(random.nextInt(bound + 1), start);
+			if (hasMine(index)) // Клетка уже выбрана, берем последнюю клетку текущего диапазона
+				index = skipStart(bound, start);
+			placeMine(index);
 		}
+	}
 
-		// Заполняем оставшиеся клетки.
-		for (int i = 0; i < getWidth(); i++)
-			for (int j = 0; j < getHeight(); j++)
-				if (field[i][j] == null)
-					field[i][j] = new Cell(this, i, j, Cell.EMPTY);
+	/**
+	 * Переводит номер клетки среди кандидатов в индекс поля, пропуская клетку первого хода.
+	 */
+	private static int skipStart(int candidate, int start) {
+		return candidate < start ? candidate : candidate + 1;
 	}
 }
@@ -0,0 +1,31 @@
+package org.polushin.minesweeper.core.field;
+
+/**
+ * Статистика областей поля.
+ * Ход на любую клетку без мины открывает всю ее область, поэтому кол-во областей равно
+ * наименьшему кол-ву ходов, открывающих поле (3BV).
+ */
+public final class RegionStats {
+
+	// Кол-во областей клеток без мин, т.е. 3BV поля
+	public final int regions;
+	// Кол-во областей, в которых есть клетка без заминированных соседей
+	public final int openings;
+	// Кол-во областей, все клетки которых граничат с минами
+	public final int islands;
+	// Кол-во клеток в наибольшей области
+	public final int largestRegion;
+
+	RegionStats(int openings, int islands, int largestRegion) {
+		this.regions = openings + islands;
+		this.openings = openings;
+		this.islands = islands;
+		this.largestRegion = largestRegion;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("3BV %d (%d openings, %d islands), largest region %d cells", regions, openings, islands,
+		                     largestRegion);
+	}
+}
@@ -0,0 +1,110 @@
+package org.polushin.minesweeper.core.replay;
+
+import org.polushin.minesweeper.core.field.MineField;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Запись игры, загруженная в память целиком.
+ * Поле восстанавливается по зерну из заголовка и генерируется первым ходом записи, как и в самой игре.
+ */
+public final class Replay {
+
+	private final ReplayHeader header;
+	private final List<ReplayMove> moves;
+	private final boolean complete;
+
+	private Replay(ReplayHeader header, List<ReplayMove> moves, boolean complete) {
+		this.header = header;
+		this.moves = moves;
+		this.complete = complete;
+	}
+
+	/**
+	 * @param file Файл записи.
+	 *
+	 * @return Загруженная запись.
+	 *
+	 * @throws IOException Если файл не является записью игры или запись повреждена.
+	 */
+	public static Replay read(Path file) throws IOException {
+		try (ReplayReader reader = new ReplayReader(file)) {
+			List<ReplayMove> moves = new ArrayList<>();
+			ReplayMove move;
+			while ((move = reader.next()) != null)
+				moves.add(move);
+			return new Replay(reader.getHeader(), Collections.unmodifiableList(moves), reader.isComplete());
+		}
+	}
+
+	/**
+	 * @return Параметры записанной игры.
+	 */
+	public ReplayHeader getHeader() {
+		return header;
+	}
+
+	/**
+	 * @return Ходы в порядке записи.
+	 */
+	public List<ReplayMove> getMoves() {
+		return moves;
+	}
+
+	/**
+	 * @return Дописана ли запись до конца.
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	/**
+	 * @return Новое поле записанной игры, мины на котором расставляются при первом ходе.
+	 *
+	 * @throws IllegalArgumentException Если параметры поля в заголовке недопустимы.
+	 */
+	public MineField newField() {
+		return header.mode.newField(header.mines, header.width, header.height, header.seed);
+	}
+
+	/**
+	 * Применяет все ходы записи к восстановленному полю без задержек.
+	 * Ходы после окончания игры делают запись недопустимой: обработчик игры их не принимает.
+	 *
+	 * @return Результат игры по записи.
+	 */
+	public ReplayResult verify() {
+		MineField field;
+		try {
+			field = newField();
+		} catch (IllegalArgumentException e) {
+			return new ReplayResult(header, ReplayStatus.ILLEGAL, 0, 0, null);
+		}
+
+		// Таймер игры запускается первым открытием клетки, а не установкой флага
+		long firstOpen = -1, last = 0;
+		int applied = 0;
+		for (ReplayMove move : moves) {
+			if (field.isGameOver() || field.isGameWon())
+				return new ReplayResult(header, ReplayStatus.ILLEGAL, applied, 0, field.getRegionStats());
+			if (move.flag)
+				field.getCell(move.x, move.y).changeFlagSet();
+			else {
+				if (firstOpen < 0)
+					firstOpen = move.time;
+				field.getCell(move.x, move.y).open();
+			}
+			last = move.time;
+			applied++;
+		}
+
+		ReplayStatus status = field.isGameWon() ? ReplayStatus.WON
+		                                         : field.isGameOver() ? ReplayStatus.LOST : ReplayStatus.UNFINISHED;
+		return new ReplayResult(header, status, applied, firstOpen < 0 ? 0 : last - firstOpen,
+		                        field.getRegionStats());
+	}
+}
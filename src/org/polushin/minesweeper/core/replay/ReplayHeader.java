@@ -0,0 +1,51 @@
+package org.polushin.minesweeper.core.replay;
+
+import org.polushin.minesweeper.core.BoardMode;
+
+/**
+ * Параметры записанной игры, по которым поле генерируется заново.
+ * Поле генерируется при первом ходе записи, как и в самой игре.
+ */
+public final class ReplayHeader {
+
+	// Наибольшее кол-во клеток поля записи: с запасом больше полей графического интерфейса,
+	// но ограничивает память, которую займет проигрывание присланной записи
+	public static final int MAX_CELLS = 1 << 26;
+
+	public final BoardMode mode;
+	public final int width, height, mines;
+	public final long seed;
+	public final String nick;
+	// Время начала игры в миллисекундах от начала эпохи
+	public final long startTime;
+
+	/**
+	 * @param mode Способ генерации поля.
+	 * @param width Ширина поля.
+	 * @param height Высота поля.
+	 * @param mines Кол-во мин.
+	 * @param seed Зерно генерации поля.
+	 * @param nick Ник игрока.
+	 * @param startTime Время начала игры в миллисекундах от начала эпохи.
+	 *
+	 * @throws IllegalArgumentException Если способ генерации или ник равны {@code null}.
+	 */
+	public ReplayHeader(BoardMode mode, int width, int height, int mines, long seed, String nick, long startTime) {
+		if (mode == null)
+			throw new IllegalArgumentException("Board mode cannot be null!");
+		if (nick == null)
+			throw new IllegalArgumentException("Nick cannot be null!");
+		this.mode = mode;
+		this.width = width;
+		this.height = height;
+		this.mines = mines;
+		this.seed = seed;
+		this.nick = nick;
+		this.startTime = startTime;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s %dx%d, %d mines, seed %d, player %s", mode, width, height, mines, seed, nick);
+	}
+}
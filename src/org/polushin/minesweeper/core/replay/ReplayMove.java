@@ -0,0 +1,25 @@
+package org.polushin.minesweeper.core.replay;
+
+/**
+ * Записанный ход игрока.
+ */
+public final class ReplayMove {
+
+	public final int x, y;
+	// Установка или снятие флага, иначе открытие клетки
+	public final boolean flag;
+	// Время хода в миллисекундах от начала записи
+	public final long time;
+
+	ReplayMove(int x, int y, boolean flag, long time) {
+		this.x = x;
+		this.y = y;
+		this.flag = flag;
+		this.time = time;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s %d %d at %d ms", flag ? "flag" : "open", x, y, time);
+	}
+}
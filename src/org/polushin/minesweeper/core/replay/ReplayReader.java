@@ -0,0 +1,129 @@
+package org.polushin.minesweeper.core.replay;
+
+import org.polushin.minesweeper.core.BoardMode;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Чтение записи игры, сделанной {@link ReplayWriter}.
+ * Ходы читаются по одному, поэтому запись любой длины не загружается в память целиком.
+ */
+public final class ReplayReader implements Closeable {
+
+	private static final int MAX_NICK_LENGTH = 1 << 16;
+
+	private final DataInputStream in;
+	private final ReplayHeader header;
+
+	private long lastTime;
+	private int lastX, lastY;
+	private boolean ended, complete;
+
+	/**
+	 * Открывает файл записи и читает заголовок.
+	 *
+	 * @param file Файл записи.
+	 *
+	 * @throws IllegalArgumentException Если файл равен {@code null}.
+	 * @throws IOException Если файл не является записью игры или ее заголовок поврежден.
+	 */
+	public ReplayReader(Path file) throws IOException {
+		if (file == null)
+			throw new IllegalArgumentException("Replay file cannot be null!");
+		in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 13));
+		try {
+			header = readHeader();
+		} catch (IOException | RuntimeException e) {
+			in.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return Параметры записанной игры.
+	 */
+	public ReplayHeader getHeader() {
+		return header;
+	}
+
+	/**
+	 * @return Следующий ход или {@code null}, если ходы закончились.
+	 *
+	 * @throws IOException Если запись повреждена.
+	 */
+	public ReplayMove next() throws IOException {
+		if (ended)
+			return null;
+		try {
+			long tag = Varint.read(in);
+			int type = (int) (tag & 3);
+			if (type == ReplayWriter.END) {
+				ended = complete = true;
+				return null;
+			}
+			if (type != ReplayWriter.OPEN && type != ReplayWriter.FLAG)
+				throw new IOException("Unknown replay record type " + type + "!");
+			int x = lastX + (int) Varint.unzigzag(tag >>> 2);
+			int y = lastY + (int) Varint.unzigzag(Varint.read(in));
+			long time = lastTime + Varint.read(in);
+			if (x < 0 || x >= header.width || y < 0 || y >= header.height)
+				throw new IOException("Replay move is out of field!");
+			lastX = x;
+			lastY = y;
+			lastTime = time;
+			return new ReplayMove(x, y, type == ReplayWriter.FLAG, time);
+		} catch (EOFException e) {
+			// Игра была прервана до завершения записи
+			ended = true;
+			return null;
+		}
+	}
+
+	/**
+	 * @return Дочитана ли запись до признака завершения.
+	 * Оборванная запись содержит все ходы, сброшенные на диск до обрыва.
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	private ReplayHeader readHeader() throws IOException {
+		if (in.readInt() != ReplayWriter.MAGIC)
+			throw new IOException("Not a replay file!");
+		byte version = in.readByte();
+		if (version != ReplayWriter.VERSION)
+			throw new IOException("Unsupported replay version " + version + "!");
+		long mode = Varint.read(in);
+		if (mode < 0 || mode >= BoardMode.values().length)
+			throw new IOException("Unknown board mode " + mode + "!");
+		// Размеры проверяются до приведения к int, иначе большие значения стали бы допустимыми
+		long width = Varint.read(in);
+		long height = Varint.read(in);
+		long mines = Varint.read(in);
+		if (width <= 0 || height <= 0 || width > ReplayHeader.MAX_CELLS || height > ReplayHeader.MAX_CELLS
+		    || width * height > ReplayHeader.MAX_CELLS)
+			throw new IOException("Wrong field size " + width + "x" + height + " in replay!");
+		if (mines <= 0 || mines >= width * height)
+			throw new IOException("Wrong mines count " + mines + " in replay!");
+		BoardMode boardMode = BoardMode.values()[(int) mode];
+		if (!boardMode.supports((int) mines, (int) width, (int) height))
+			throw new IOException("Board mode " + boardMode + " does not support replay field!");
+		long seed = in.readLong();
+		long startTime = Varint.read(in);
+		long nickLength = Varint.read(in);
+		if (nickLength < 0 || nickLength > MAX_NICK_LENGTH)
+			throw new IOException("Wrong nick length!");
+		byte[] nick = new byte[(int) nickLength];
+		in.readFully(nick);
+		return new ReplayHeader(boardMode, (int) width, (int) height, (int) mines, seed,
+		                        new String(nick, StandardCharsets.UTF_8), startTime);
+	}
+}
@@ -0,0 +1,47 @@
+package org.polushin.minesweeper.core.replay;
+
+import org.polushin.minesweeper.core.PlayerScore;
+import org.polushin.minesweeper.core.field.RegionStats;
+
+/**
+ * Результат повторного проигрывания записи игры.
+ */
+public final class ReplayResult {
+
+	public final ReplayHeader header;
+	public final ReplayStatus status;
+	// Кол-во примененных ходов
+	public final int moves;
+	// Время от первого открытия клетки до последнего хода в миллисекундах, как его считает таймер игры
+	public final long duration;
+	// Статистика областей поля или null, если поле не было сгенерировано
+	public final RegionStats stats;
+
+	ReplayResult(ReplayHeader header, ReplayStatus status, int moves, long duration, RegionStats stats) {
+		this.header = header;
+		this.status = status;
+		this.moves = moves;
+		this.duration = duration;
+		this.stats = stats;
+	}
+
+	/**
+	 * Проверяет заявленный результат игрока по записи.
+	 * Время заявленного результата не может быть меньше времени записи. Таймер игры и запись округляют
+	 * время вниз независимо, поэтому допускается расхождение в одну миллисекунду.
+	 *
+	 * @param score Заявленный результат.
+	 *
+	 * @return Подтверждается ли результат: игра выиграна тем же игроком на том же поле не быстрее записи.
+	 */
+	public boolean confirms(PlayerScore score) {
+		return status == ReplayStatus.WON && score.nick.equals(header.nick) && score.width == header.width &&
+		       score.height == header.height && score.mines == header.mines &&
+		       score.time >= (duration - 1) / 1000 && (score.threeBV == 0 || score.threeBV == stats.regions);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s after %d moves, %.3f sec (%s)", status, moves, duration / 1e3, header);
+	}
+}
@@ -0,0 +1,27 @@
+package org.polushin.minesweeper.core.replay;
+
+/**
+ * Итог проверки записи игры.
+ */
+public enum ReplayStatus {
+
+	/**
+	 * Последний ход записи выигрывает игру.
+	 */
+	WON,
+
+	/**
+	 * Последний ход записи попадает на мину.
+	 */
+	LOST,
+
+	/**
+	 * Ходы закончились до окончания игры.
+	 */
+	UNFINISHED,
+
+	/**
+	 * Запись невозможно получить в игре: ходы после окончания игры или недопустимые параметры поля.
+	 */
+	ILLEGAL
+}
@@ -0,0 +1,170 @@
+package org.polushin.minesweeper.core.replay;
+
+import org.polushin.minesweeper.core.BoardConfig;
+import org.polushin.minesweeper.core.PlayerScore;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Проверка каталога записей игр в нескольких потоках.
+ * Записи независимы, поэтому каждая читается и проигрывается отдельной задачей.
+ *
+ * Результаты таблицы рекордов сверяются с выигранными записями: каждая запись подтверждает не больше одного
+ * результата того же игрока на том же поле. Результат, для которого есть записи игрока на этом поле,
+ * но ни одна его не подтверждает, считается подозрительным. Результаты без записей не проверяются,
+ * так как игры могли вестись без записи.
+ */
+public class ReplayVerifier {
+
+	private final int threads;
+
+	/**
+	 * @param threads Кол-во потоков проверки.
+	 *
+	 * @throws IllegalArgumentException Если кол-во потоков не положительно.
+	 */
+	public ReplayVerifier(int threads) {
+		if (threads <= 0)
+			throw new IllegalArgumentException("Threads count must be positive!");
+		this.threads = threads;
+	}
+
+	/**
+	 * Проверяет все файлы записей каталога.
+	 * Если вызывающий поток прерван, в отчет попадают уже проверенные записи, а сам отчет помечается неполным.
+	 *
+	 * @param directory Каталог записей.
+	 *
+	 * @return Отчет о проверке.
+	 *
+	 * @throws IllegalArgumentException Если каталог равен {@code null}.
+	 * @throws IOException Если каталог невозможно прочитать.
+	 */
+	public VerificationReport verifyDirectory(Path directory) throws IOException {
+		return verifyDirectory(directory, Collections.emptyList());
+	}
+
+	/**
+	 * Проверяет все файлы записей каталога и сверяет с ними результаты таблицы рекордов.
+	 * Если вызывающий поток прерван, в отчет попадают уже проверенные записи, а сам отчет помечается неполным
+	 * и результаты не сверяются.
+	 *
+	 * @param directory Каталог записей.
+	 * @param scores Результаты таблицы рекордов.
+	 *
+	 * @return Отчет о проверке.
+	 *
+	 * @throws IllegalArgumentException Если каталог или результаты равны {@code null}.
+	 * @throws IOException Если каталог невозможно прочитать.
+	 */
+	public VerificationReport verifyDirectory(Path directory, Collection<PlayerScore> scores) throws IOException {
+		if (directory == null)
+			throw new IllegalArgumentException("Directory cannot be null!");
+		if (scores == null)
+			throw new IllegalArgumentException("Scores cannot be null!");
+		List<Callable<Outcome>> tasks = new ArrayList<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + ReplayWriter.FILE_EXTENSION)) {
+			for (Path file : files)
+				tasks.add(() -> verify(file));
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		long start = System.nanoTime();
+		VerificationReport report = new VerificationReport();
+		List<ReplayResult> won = new ArrayList<>();
+		try {
+			List<Future<Outcome>> outcomes = new ArrayList<>(tasks.size());
+			for (Callable<Outcome> task : tasks)
+				outcomes.add(pool.submit(task));
+			for (Future<Outcome> outcome : outcomes) {
+				Outcome result = outcome.get();
+				report.add(result.file, result.result, result.error);
+				if (result.result != null && result.result.status == ReplayStatus.WON)
+					won.add(result.result);
+			}
+			confirmScores(won, scores, report);
+		} catch (InterruptedException e) {
+			report.setPartial();
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Replay verification failed!", e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+		report.setElapsed(System.nanoTime() - start);
+		return report;
+	}
+
+	/**
+	 * Сопоставляет результаты с выигранными записями того же игрока на том же поле.
+	 * Результаты перебираются от быстрых к медленным, и каждому достается самая быстрая из еще не занятых
+	 * подтверждающих записей, так что медленные записи остаются для медленных результатов.
+	 */
+	private static void confirmScores(List<ReplayResult> won, Collection<PlayerScore> scores,
+	                                  VerificationReport report) {
+		Map<BoardConfig, Map<String, List<ReplayResult>>> replays = new HashMap<>();
+		for (ReplayResult result : won) {
+			ReplayHeader header = result.header;
+			replays.computeIfAbsent(new BoardConfig(header.width, header.height, header.mines), k -> new HashMap<>())
+			       .computeIfAbsent(header.nick, k -> new ArrayList<>()).add(result);
+		}
+		for (Map<String, List<ReplayResult>> players : replays.values())
+			for (List<ReplayResult> results : players.values())
+				results.sort(Comparator.comparingLong(result -> result.duration));
+
+		List<PlayerScore> sorted = new ArrayList<>(scores);
+		sorted.sort(Comparator.comparingInt(score -> score.time));
+		for (PlayerScore score : sorted) {
+			List<ReplayResult> results = replays.getOrDefault(score.getConfig(), Collections.emptyMap())
+			                                    .get(score.nick);
+			if (results == null)
+				continue;
+			boolean confirmed = false;
+			for (Iterator<ReplayResult> it = results.iterator(); it.hasNext() && !confirmed; )
+				if (it.next().confirms(score)) {
+					it.remove();
+					confirmed = true;
+				}
+			report.addScore(score, confirmed);
+		}
+	}
+
+	private static Outcome verify(Path file) {
+		try {
+			return new Outcome(file, Replay.read(file).verify(), null);
+		} catch (IOException e) {
+			return new Outcome(file, null, e);
+		}
+	}
+
+	/**
+	 * Результат проверки одного файла: результат проигрывания или ошибка чтения.
+	 */
+	private static final class Outcome {
+
+		final Path file;
+		final ReplayResult result;
+		final IOException error;
+
+		Outcome(Path file, ReplayResult result, IOException error) {
+			this.file = file;
+			this.result = result;
+			this.error = error;
+		}
+	}
+}
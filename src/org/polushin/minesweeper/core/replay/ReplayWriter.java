@@ -0,0 +1,132 @@
+package org.polushin.minesweeper.core.replay;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Запись игры в компактном двоичном формате.
+ *
+ * Заголовок: {@code "MSRP"}, версия формата (байт), затем varint способ генерации, ширина, высота, кол-во мин,
+ * зерно (8 байт), varint время начала и ник (varint длина и UTF-8).
+ * Ход: varint {@code zigzag(dx) << 2 | тип}, varint {@code zigzag(dy)}, varint миллисекунды с предыдущего хода,
+ * где dx и dy - смещение от клетки предыдущего хода. Тип 1 - открытие клетки, 2 - флаг.
+ * Нулевой байт (тип 0) завершает запись, без него запись считается оборванной.
+ *
+ * Ход обычно занимает три байта. Записи копятся в буфере и сбрасываются в файл при его заполнении
+ * и при закрытии.
+ */
+public final class ReplayWriter implements Closeable {
+
+	// Расширение файлов записей
+	public static final String FILE_EXTENSION = ".msr";
+
+	static final int MAGIC = 'M' << 24 | 'S' << 16 | 'R' << 8 | 'P';
+	static final byte VERSION = 1;
+	static final int END = 0, OPEN = 1, FLAG = 2;
+
+	private static final int BUFFER_SIZE = 1 << 13;
+	private static final int MAX_MOVE_LENGTH = 3 * Varint.MAX_LENGTH;
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+	private final long begin = System.nanoTime();
+
+	private long lastTime;
+	private int lastX, lastY;
+	private boolean closed;
+
+	/**
+	 * Создает файл записи и пишет в него заголовок.
+	 *
+	 * @param file Файл записи, существующий файл перезаписывается.
+	 * @param header Параметры игры.
+	 *
+	 * @throws IllegalArgumentException Если файл или заголовок равны {@code null}.
+	 */
+	public ReplayWriter(Path file, ReplayHeader header) throws IOException {
+		if (file == null)
+			throw new IllegalArgumentException("Replay file cannot be null!");
+		if (header == null)
+			throw new IllegalArgumentException("Replay header cannot be null!");
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+		                           StandardOpenOption.WRITE);
+		byte[] nick = header.nick.getBytes(StandardCharsets.UTF_8);
+		ByteBuffer head = ByteBuffer.allocate(Integer.BYTES + 1 + 6 * Varint.MAX_LENGTH + Long.BYTES + nick.length);
+		head.putInt(MAGIC);
+		head.put(VERSION);
+		Varint.write(head, header.mode.ordinal());
+		Varint.write(head, header.width);
+		Varint.write(head, header.height);
+		Varint.write(head, header.mines);
+		head.putLong(header.seed);
+		Varint.write(head, header.startTime);
+		Varint.write(head, nick.length);
+		head.put(nick);
+		head.flip();
+		write(head);
+	}
+
+	/**
+	 * Записывает открытие клетки.
+	 */
+	public void open(int x, int y) throws IOException {
+		move(x, y, OPEN);
+	}
+
+	/**
+	 * Записывает установку или снятие флага.
+	 */
+	public void flag(int x, int y) throws IOException {
+		move(x, y, FLAG);
+	}
+
+	/**
+	 * Сбрасывает накопленные ходы в файл.
+	 */
+	public void flush() throws IOException {
+		buffer.flip();
+		write(buffer);
+		buffer.clear();
+	}
+
+	/**
+	 * Завершает запись и закрывает файл.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed)
+			return;
+		closed = true;
+		try {
+			buffer.put((byte) END);
+			flush();
+		} finally {
+			channel.close();
+		}
+	}
+
+	private void move(int x, int y, int type) throws IOException {
+		if (closed)
+			throw new IllegalStateException("Replay is closed.");
+		if (buffer.remaining() < MAX_MOVE_LENGTH)
+			flush();
+		long time = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+		Varint.write(buffer, Varint.zigzag(x - lastX) << 2 | type);
+		Varint.write(buffer, Varint.zigzag(y - lastY));
+		Varint.write(buffer, time - lastTime);
+		lastX = x;
+		lastY = y;
+		lastTime = time;
+	}
+
+	private void write(ByteBuffer data) throws IOException {
+		while (data.hasRemaining())
+			channel.write(data);
+	}
+}
@@ -0,0 +1,52 @@
+package org.polushin.minesweeper.core.replay;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Целые числа переменной длины: по 7 бит в байте, старший бит - признак продолжения.
+ * Знаковые числа предварительно переводятся zigzag-кодированием, чтобы малые по модулю занимали один байт.
+ */
+final class Varint {
+
+	// Наибольшая длина числа типа long
+	static final int MAX_LENGTH = 10;
+
+	private Varint() {
+	}
+
+	static void write(ByteBuffer buffer, long value) {
+		while ((value & ~0x7fL) != 0) {
+			buffer.put((byte) (value & 0x7f | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	/**
+	 * @throws EOFException Если поток закончился посреди числа.
+	 * @throws IOException Если число длиннее {@link #MAX_LENGTH} байт.
+	 */
+	static long read(InputStream in) throws IOException {
+		long value = 0;
+		for (int shift = 0; shift < 7 * MAX_LENGTH; shift += 7) {
+			int next = in.read();
+			if (next < 0)
+				throw new EOFException();
+			value |= (long) (next & 0x7f) << shift;
+			if ((next & 0x80) == 0)
+				return value;
+		}
+		throw new IOException("Varint is too long!");
+	}
+
+	static long zigzag(long value) {
+		return value << 1 ^ value >> 63;
+	}
+
+	static long unzigzag(long value) {
+		return value >>> 1 ^ -(value & 1);
+	}
+}
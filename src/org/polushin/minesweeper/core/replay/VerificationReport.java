@@ -0,0 +1,136 @@
+package org.polushin.minesweeper.core.replay;
+
+import org.polushin.minesweeper.core.PlayerScore;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Итоги проверки каталога записей: кол-во записей по результатам и список подозрительных файлов.
+ * Подозрительными считаются поврежденные записи, записи, невозможные в игре, и результаты таблицы рекордов,
+ * не подтвержденные записями.
+ */
+public final class VerificationReport {
+
+	private final Map<ReplayStatus, Integer> counts = new EnumMap<>(ReplayStatus.class);
+	private final List<String> suspicious = new ArrayList<>();
+	private int corrupted;
+	private int confirmed, unconfirmed;
+	private long elapsedNanos;
+	// Была ли проверка прервана до того, как проверены все записи
+	private boolean partial;
+
+	VerificationReport() {
+		for (ReplayStatus status : ReplayStatus.values())
+			counts.put(status, 0);
+	}
+
+	void add(Path file, ReplayResult result, IOException error) {
+		if (error != null) {
+			corrupted++;
+			suspicious.add(file.getFileName() + ": " + error.getMessage());
+			return;
+		}
+		counts.merge(result.status, 1, Integer::sum);
+		if (result.status == ReplayStatus.ILLEGAL)
+			suspicious.add(file.getFileName() + ": " + result);
+	}
+
+	void addScore(PlayerScore score, boolean confirmed) {
+		if (confirmed) {
+			this.confirmed++;
+			return;
+		}
+		unconfirmed++;
+		suspicious.add("score " + score + ": not confirmed by replays");
+	}
+
+	void setElapsed(long elapsedNanos) {
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	void setPartial() {
+		partial = true;
+	}
+
+	/**
+	 * @return Неполон ли отчет: проверка была прервана и проверены не все записи.
+	 */
+	public boolean isPartial() {
+		return partial;
+	}
+
+	/**
+	 * @return Кол-во проверенных записей, включая поврежденные.
+	 */
+	public int getReplays() {
+		int replays = corrupted;
+		for (int count : counts.values())
+			replays += count;
+		return replays;
+	}
+
+	/**
+	 * @return Кол-во записей с данным результатом.
+	 */
+	public int getCount(ReplayStatus status) {
+		return counts.get(status);
+	}
+
+	/**
+	 * @return Кол-во записей, которые не удалось прочитать.
+	 */
+	public int getCorrupted() {
+		return corrupted;
+	}
+
+	/**
+	 * @return Кол-во результатов таблицы рекордов, подтвержденных записями.
+	 */
+	public int getConfirmedScores() {
+		return confirmed;
+	}
+
+	/**
+	 * @return Кол-во результатов таблицы рекордов, которые не подтвердила ни одна запись того же игрока на том же поле.
+	 */
+	public int getUnconfirmedScores() {
+		return unconfirmed;
+	}
+
+	/**
+	 * @return Поврежденные и недопустимые записи и неподтвержденные результаты с описанием.
+	 */
+	public List<String> getSuspicious() {
+		return suspicious;
+	}
+
+	/**
+	 * @return Кол-во проверенных записей в секунду.
+	 */
+	public double getVerificationsPerSecond() {
+		return getReplays() / Math.max(elapsedNanos / 1e9, 1e-9);
+	}
+
+	/**
+	 * Печатает отчет вместе со списком подозрительных записей.
+	 */
+	public void print(PrintStream out) {
+		if (partial)
+			out.println("Verification was interrupted, the report is partial.");
+		out.printf("Replays: %d, time: %.2f s%n", getReplays(), elapsedNanos / 1e9);
+		out.printf("Throughput: %.0f verifications/s%n", getVerificationsPerSecond());
+		out.printf("Won: %d, lost: %d, unfinished: %d, illegal: %d, corrupted: %d%n", getCount(ReplayStatus.WON),
+		           getCount(ReplayStatus.LOST), getCount(ReplayStatus.UNFINISHED), getCount(ReplayStatus.ILLEGAL),
+		           corrupted);
+		if (confirmed + unconfirmed > 0)
+			out.printf("Scores confirmed: %d, unconfirmed: %d%n", confirmed, unconfirmed);
+		for (String line : suspicious)
+			out.println("  " + line);
+	}
+}
@@ -0,0 +1,138 @@
+package org.polushin.minesweeper.core.solver;
+
+import java.util.Arrays;
+
+/**
+ * Связная часть границы: неизвестные клетки и открытые клетки-ограничения, связанные общими неизвестными.
+ * Переменные пронумерованы локально, ограничение требует ровно {@code need} мин среди своих переменных.
+ */
+final class Component {
+
+	// Глобальные индексы переменных
+	final int[] vars;
+	// Локальные номера переменных каждого ограничения
+	final int[][] constraintVars;
+	final int[] need;
+	// Ограничения, в которые входит каждая переменная
+	final int[][] varConstraints;
+
+	Component(int[] vars, int[][] constraintVars, int[] need) {
+		this.vars = vars;
+		this.constraintVars = constraintVars;
+		this.need = need;
+
+		int[] count = new int[vars.length];
+		for (int[] constraint : constraintVars)
+			for (int var : constraint)
+				count[var]++;
+		varConstraints = new int[vars.length][];
+		for (int i = 0; i < vars.length; i++)
+			varConstraints[i] = new int[count[i]];
+		Arrays.fill(count, 0);
+		for (int c = 0; c < constraintVars.length; c++)
+			for (int var : constraintVars[c])
+				varConstraints[var][count[var]++] = c;
+	}
+
+	/**
+	 * Части равны, если совпадают их переменные и ограничения, т.е. совпадают и их распределения мин.
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof Component))
+			return false;
+		Component other = (Component) obj;
+		return Arrays.equals(vars, other.vars) && Arrays.equals(need, other.need) &&
+		       Arrays.deepEquals(constraintVars, other.constraintVars);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * (31 * Arrays.hashCode(vars) + Arrays.hashCode(need)) + Arrays.deepHashCode(constraintVars);
+	}
+
+	/**
+	 * Перебирает все расстановки мин, удовлетворяющие ограничениям.
+	 *
+	 * @param maxMines Наибольшее допустимое кол-во мин в расстановке.
+	 * @param mineCounts Массив по числу переменных, куда добавляется кол-во расстановок с миной на переменной.
+	 *
+	 * @return Кол-во допустимых расстановок.
+	 */
+	long enumerate(int maxMines, long[] mineCounts) {
+		Search search = new Search(maxMines, mineCounts);
+		search.assign(0);
+		return search.solutions;
+	}
+
+	/**
+	 * Перебор с возвратом: переменные назначаются по порядку, ограничения проверяются после каждого назначения.
+	 */
+	private final class Search {
+
+		private final int maxMines;
+		private final long[] mineCounts;
+		private final boolean[] mine = new boolean[vars.length];
+		private final int[] mines = new int[need.length];
+		private final int[] unassigned = new int[need.length];
+
+		private int totalMines;
+		private long solutions;
+
+		Search(int maxMines, long[] mineCounts) {
+			this.maxMines = maxMines;
+			this.mineCounts = mineCounts;
+			for (int c = 0; c < need.length; c++)
+				unassigned[c] = constraintVars[c].length;
+		}
+
+		void assign(int var) {
+			if (var == vars.length) {
+				solutions++;
+				for (int i = 0; i < vars.length; i++)
+					if (mine[i])
+						mineCounts[i]++;
+				return;
+			}
+			if (set(var, false))
+				assign(var + 1);
+			unset(var, false);
+			if (totalMines < maxMines) {
+				if (set(var, true))
+					assign(var + 1);
+				unset(var, true);
+			}
+		}
+
+		/**
+		 * Назначает переменную.
+		 *
+		 * @return Остаются ли выполнимыми все ограничения переменной.
+		 */
+		private boolean set(int var, boolean isMine) {
+			mine[var] = isMine;
+			if (isMine)
+				totalMines++;
+			boolean feasible = true;
+			for (int c : varConstraints[var]) {
+				unassigned[c]--;
+				if (isMine)
+					mines[c]++;
+				if (mines[c] > need[c] || mines[c] + unassigned[c] < need[c])
+					feasible = false;
+			}
+			return feasible;
+		}
+
+		private void unset(int var, boolean isMine) {
+			mine[var] = false;
+			if (isMine)
+				totalMines--;
+			for (int c : varConstraints[var]) {
+				unassigned[c]++;
+				if (isMine)
+					mines[c]--;
+			}
+		}
+	}
+}
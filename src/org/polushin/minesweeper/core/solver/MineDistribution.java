@@ -0,0 +1,277 @@
+package org.polushin.minesweeper.core.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Распределение расстановок мин части границы по кол-ву мин в ней.
+ *
+ * Считается динамикой по переменным в порядке их обхода: состояние - кол-ва мин у ограничений,
+ * часть переменных которых уже назначена. Расстановки с одинаковым состоянием объединяются,
+ * поэтому время зависит от ширины границы, а не от кол-ва расстановок.
+ * Веса нормированы, значение имеют только их отношения.
+ */
+final class MineDistribution {
+
+	// Не дает весам выйти за пределы double на длинных границах
+	private static final double RESCALE_LIMIT = 1e100;
+
+	// Вес расстановок с k минами
+	final double[] solutions;
+	// Вес расстановок с k минами и миной на переменной: mines[var][k]
+	final double[][] mines;
+
+	private MineDistribution(double[] solutions, double[][] mines) {
+		this.solutions = solutions;
+		this.mines = mines;
+	}
+
+	/**
+	 * @return Распределение мин части границы или {@code null}, если допустимых расстановок нет.
+	 */
+	static MineDistribution of(Component component) {
+		return new Builder(component).build();
+	}
+
+	/**
+	 * Состояние динамики: кол-ва мин у незакрытых ограничений в порядке их номеров.
+	 */
+	private static final class State {
+
+		final byte[] counts;
+		private final int hash;
+
+		State(byte[] counts) {
+			this.counts = counts;
+			hash = Arrays.hashCode(counts);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof State && Arrays.equals(counts, ((State) obj).counts);
+		}
+	}
+
+	private static final class Builder {
+
+		private final Component component;
+		private final int vars;
+		private final int[] first, last;
+		// Ограничения, у которых назначена часть переменных, на границе перед переменной b
+		private final int[][] active;
+		// Кол-во переменных ограничения после данной: after[var][i] для i-го ограничения переменной
+		private final int[][] after;
+
+		// Состояния на каждой границе и переходы из них при безопасной и заминированной переменной
+		private final List<List<State>> states = new ArrayList<>();
+		private final List<int[][]> transitions = new ArrayList<>();
+		private final double[][][] forward;
+		private final double[][][] backward;
+		private final double[] forwardScale, backwardScale;
+
+		Builder(Component component) {
+			this.component = component;
+			vars = component.vars.length;
+			int constraints = component.need.length;
+
+			first = new int[constraints];
+			last = new int[constraints];
+			Arrays.fill(first, vars);
+			Arrays.fill(last, -1);
+			for (int c = 0; c < constraints; c++)
+				for (int var : component.constraintVars[c]) {
+					first[c] = Math.min(first[c], var);
+					last[c] = Math.max(last[c], var);
+				}
+
+			active = new int[vars + 1][];
+			for (int b = 0; b <= vars; b++) {
+				int[] list = new int[constraints];
+				int size = 0;
+				for (int c = 0; c < constraints; c++)
+					if (first[c] < b && b <= last[c])
+						list[size++] = c;
+				active[b] = Arrays.copyOf(list, size);
+			}
+
+			after = new int[vars][];
+			for (int var = 0; var < vars; var++) {
+				int[] varConstraints = component.varConstraints[var];
+				after[var] = new int[varConstraints.length];
+				for (int i = 0; i < varConstraints.length; i++)
+					for (int other : component.constraintVars[varConstraints[i]])
+						if (other > var)
+							after[var][i]++;
+			}
+
+			forward = new double[vars + 1][][];
+			backward = new double[vars + 1][][];
+			forwardScale = new double[vars + 1];
+			backwardScale = new double[vars + 1];
+		}
+
+		MineDistribution build() {
+			buildForward();
+			if (states.get(vars).isEmpty())
+				return null;
+			buildBackward();
+
+			double[] solutions = forward[vars][0].clone();
+			double[][] mines = new double[vars][vars + 1];
+			for (int var = 0; var < vars; var++) {
+				double scale = Math.exp(forwardScale[var] + backwardScale[var + 1] - forwardScale[vars]);
+				int[][] next = transitions.get(var);
+				for (int s = 0; s < next.length; s++)
+					if (next[s][1] >= 0)
+						addProduct(mines[var], forward[var][s], backward[var + 1][next[s][1]], scale);
+			}
+
+			double max = 0;
+			for (double value : solutions)
+				max = Math.max(max, value);
+			for (int k = 0; k <= vars; k++) {
+				solutions[k] /= max;
+				for (int var = 0; var < vars; var++)
+					mines[var][k] /= max;
+			}
+			return new MineDistribution(solutions, mines);
+		}
+
+		/**
+		 * Прямой проход: вес достижения каждого состояния по кол-ву мин в назначенных переменных.
+		 */
+		private void buildForward() {
+			states.add(new ArrayList<>(List.of(new State(new byte[0]))));
+			forward[0] = new double[][] {{1}};
+			for (int var = 0; var < vars; var++) {
+				List<State> from = states.get(var);
+				List<State> to = new ArrayList<>();
+				Map<State, Integer> indices = new HashMap<>();
+				List<double[]> weights = new ArrayList<>();
+				int[][] next = new int[from.size()][2];
+
+				int[] position = positions(var);
+				for (int s = 0; s < from.size(); s++)
+					for (int mine = 0; mine <= 1; mine++) {
+						State state = next(from.get(s), var, mine, position);
+						if (state == null) {
+							next[s][mine] = -1;
+							continue;
+						}
+						Integer index = indices.get(state);
+						if (index == null) {
+							index = to.size();
+							indices.put(state, index);
+							to.add(state);
+							weights.add(new double[var + 2]);
+						}
+						next[s][mine] = index;
+						double[] source = forward[var][s];
+						double[] target = weights.get(index);
+						for (int k = 0; k < source.length; k++)
+							target[k + mine] += source[k];
+					}
+
+				states.add(to);
+				transitions.add(next);
+				forward[var + 1] = weights.toArray(new double[0][]);
+				forwardScale[var + 1] = forwardScale[var] + rescale(forward[var + 1]);
+			}
+		}
+
+		/**
+		 * Обратный проход: вес завершения из каждого состояния по кол-ву мин в оставшихся переменных.
+		 */
+		private void buildBackward() {
+			backward[vars] = new double[states.get(vars).size()][];
+			for (int s = 0; s < backward[vars].length; s++)
+				backward[vars][s] = new double[] {1};
+			for (int var = vars - 1; var >= 0; var--) {
+				int[][] next = transitions.get(var);
+				double[][] weights = new double[next.length][vars - var + 1];
+				for (int s = 0; s < next.length; s++)
+					for (int mine = 0; mine <= 1; mine++)
+						if (next[s][mine] >= 0) {
+							double[] source = backward[var + 1][next[s][mine]];
+							for (int k = 0; k < source.length; k++)
+								weights[s][k + mine] += source[k];
+						}
+				backward[var] = weights;
+				backwardScale[var] = backwardScale[var + 1] + rescale(weights);
+			}
+		}
+
+		/**
+		 * @return Позиции ограничений в состоянии на границе перед переменной.
+		 */
+		private int[] positions(int var) {
+			int[] position = new int[component.need.length];
+			for (int i = 0; i < active[var].length; i++)
+				position[active[var][i]] = i;
+			return position;
+		}
+
+		/**
+		 * @return Состояние после назначения переменной или {@code null}, если ограничение нарушено.
+		 */
+		private State next(State state, int var, int mine, int[] position) {
+			int[] varConstraints = component.varConstraints[var];
+			for (int i = 0; i < varConstraints.length; i++) {
+				int c = varConstraints[i];
+				int count = (first[c] < var ? state.counts[position[c]] : 0) + mine;
+				if (count > component.need[c] || count + after[var][i] < component.need[c])
+					return null;
+			}
+
+			int[] to = active[var + 1];
+			byte[] counts = new byte[to.length];
+			for (int i = 0; i < to.length; i++) {
+				int c = to[i];
+				int count = first[c] < var ? state.counts[position[c]] : 0;
+				counts[i] = (byte) count;
+			}
+			for (int c : varConstraints)
+				if (last[c] > var)
+					counts[Arrays.binarySearch(to, c)] += mine;
+			return new State(counts);
+		}
+
+		/**
+		 * Уменьшает слишком большие веса.
+		 *
+		 * @return Натуральный логарифм множителя, на который были поделены веса.
+		 */
+		private static double rescale(double[][] weights) {
+			double max = 0;
+			for (double[] row : weights)
+				for (double value : row)
+					max = Math.max(max, value);
+			if (max < RESCALE_LIMIT)
+				return 0;
+			for (double[] row : weights)
+				for (int k = 0; k < row.length; k++)
+					row[k] /= max;
+			return Math.log(max);
+		}
+
+		/**
+		 * Добавляет к результату свертку весов начала и завершения с миной на переменной между ними.
+		 */
+		private static void addProduct(double[] result, double[] head, double[] tail, double scale) {
+			for (int i = 0; i < head.length; i++) {
+				if (head[i] == 0)
+					continue;
+				for (int j = 0; j < tail.length; j++)
+					result[i + j + 1] += head[i] * tail[j] * scale;
+			}
+		}
+	}
+}
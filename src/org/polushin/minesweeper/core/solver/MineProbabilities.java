@@ -0,0 +1,47 @@
+package org.polushin.minesweeper.core.solver;
+
+import org.polushin.minesweeper.core.field.Cell;
+import org.polushin.minesweeper.core.field.MineField;
+
+/**
+ * Вероятности мин на клетках поля при текущем видимом состоянии.
+ */
+public class MineProbabilities {
+
+	private final MineField field;
+	private final double[] probabilities;
+
+	/**
+	 * @param field Поле.
+	 * @param probabilities Вероятности мин по индексу клетки {@code x * height + y}, для открытых клеток - 0.
+	 */
+	MineProbabilities(MineField field, double[] probabilities) {
+		this.field = field;
+		this.probabilities = probabilities;
+	}
+
+	/**
+	 * @param x Позиция клетки по X.
+	 * @param y Позиция клетки по Y.
+	 *
+	 * @return Вероятность мины на клетке.
+	 */
+	public double get(int x, int y) {
+		return probabilities[x * field.getHeight() + y];
+	}
+
+	/**
+	 * @return Закрытая клетка с наименьшей вероятностью мины или {@code null}, если закрытых безопасных клеток нет.
+	 */
+	public Cell getSafestCell() {
+		int height = field.getHeight();
+		int best = -1;
+		for (int index = 0; index < probabilities.length; index++) {
+			if (probabilities[index] >= 1 || best != -1 && probabilities[index] >= probabilities[best])
+				continue;
+			if (!field.getCell(index / height, index % height).isOpened())
+				best = index;
+		}
+		return best == -1 ? null : field.getCell(best / height, best % height);
+	}
+}
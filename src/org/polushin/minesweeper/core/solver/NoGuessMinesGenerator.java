@@ -0,0 +1,179 @@
+package org.polushin.minesweeper.core.solver;
+
+import org.polushin.minesweeper.core.field.Cell;
+import org.polushin.minesweeper.core.field.MineField;
+import org.polushin.minesweeper.core.field.RandomMinesGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Генератор поля, которое решается от первого хода без угадывания.
+ *
+ * Кандидаты - случайные поля, каждое проверяется проходом {@link Solver} от первого хода.
+ * Кандидаты проверяются пачками параллельно, и из пачки берется подходящий кандидат с наименьшим номером.
+ * Кол-во кандидатов зависит только от размера поля, а пачки обрезаются по нему, поэтому поле с заданным зерном
+ * не зависит от кол-ва потоков, на чем основана проверка записей игр.
+ *
+ * Размер поля и плотность мин ограничены: каждый параллельно проверяемый кандидат держит свое поле и решатель,
+ * а при большой плотности подходящие кандидаты почти не встречаются. Кол-во проверяемых кандидатов
+ * уменьшается с ростом поля, и если подходящий не нашелся, берется обычное случайное поле,
+ * что видно по {@link #isVerified()}.
+ */
+public class NoGuessMinesGenerator extends MineField {
+
+	public static final int MAX_CELLS = 250_000;
+	// Наибольшая доля клеток с минами
+	public static final double MAX_DENSITY = 0.25;
+
+	// Кол-во кандидатов, после проверки которых берется обычное случайное поле
+	private static final int MAX_CANDIDATES = 10000;
+	// Наибольшее суммарное кол-во клеток проверенных кандидатов
+	private static final long MAX_CHECKED_CELLS = 100_000_000L;
+
+	private final long seed;
+	// Пул параллельной проверки кандидатов
+	private final ForkJoinPool pool;
+	private boolean verified;
+
+	/**
+	 * @param mines Кол-во мин на поле.
+	 * @param width Ширина поля.
+	 * @param height Высота поля.
+	 *
+	 * @throws IllegalArgumentException Если ширина, высота или кол-во мин не положительны или
+	 * невозможно расставить данное кол-во мин.
+	 */
+	public NoGuessMinesGenerator(int mines, int width, int height) {
+		this(mines, width, height, new Random().nextLong());
+	}
+
+	/**
+	 * @param mines Кол-во мин на поле.
+	 * @param width Ширина поля.
+	 * @param height Высота поля.
+	 * @param seed Зерно для генерации поля.
+	 *
+	 * @throws IllegalArgumentException Если ширина, высота или кол-во мин не положительны,
+	 * невозможно расставить данное кол-во мин или поле превышает ограничения.
+	 */
+	public NoGuessMinesGenerator(int mines, int width, int height, long seed) {
+		this(mines, width, height, seed, ForkJoinPool.commonPool());
+	}
+
+	NoGuessMinesGenerator(int mines, int width, int height, long seed, ForkJoinPool pool) {
+		super(width, height);
+		if (mines <= 0)
+			throw new IllegalArgumentException("Mines count must be positive!");
+		if (width * height <= mines)
+			throw new IllegalArgumentException(
+					"Cannot place " + mines + " mines to " + width + "x" + height + "field.");
+		if (!isSupported(mines, width, height))
+			throw new IllegalArgumentException("No-guess field cannot exceed " + MAX_CELLS + " cells and "
+			                                   + (int) (MAX_DENSITY * 100) + "% of mines!");
+		this.minesCount = mines;
+		this.seed = seed;
+		this.pool = pool;
+	}
+
+	/**
+	 * @return Укладывается ли поле в ограничения генератора.
+	 */
+	public static boolean isSupported(int mines, int width, int height) {
+		long cells = (long) width * height;
+		return cells <= MAX_CELLS && mines <= cells * MAX_DENSITY;
+	}
+
+	/**
+	 * @return Доказано ли, что поле решается без угадывания.
+	 * {@code false}, если поле еще не сгенерировано или подходящий кандидат не был найден.
+	 */
+	public boolean isVerified() {
+		return verified;
+	}
+
+	/**
+	 * @throws IllegalStateException Если поток прерван во время поиска: иначе вместо поля с данным зерном
+	 * получилось бы другое.
+	 */
+	@Override
+	protected void generate(int startX, int startY) {
+		int batchSize = Math.max(1, pool.getParallelism());
+		Candidate layout = null;
+		long candidates = Math.min(MAX_CANDIDATES, Math.max(1, MAX_CHECKED_CELLS / (getWidth() * getHeight())));
+
+		for (int first = 0; layout == null && first < candidates; first += batchSize) {
+			int last = (int) Math.min(first + batchSize, candidates);
+			List<Callable<Candidate>> batch = new ArrayList<>(last - first);
+			for (int i = first; i < last; i++) {
+				long candidateSeed = candidateSeed(i);
+				batch.add(() -> {
+					Candidate candidate = new Candidate(minesCount, getWidth(), getHeight(), candidateSeed);
+					return candidate.isSolvable(startX, startY) ? candidate : null;
+				});
+			}
+			try {
+				for (Future<Candidate> result : pool.invokeAll(batch))
+					if (layout == null)
+						layout = result.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("No-guess field generation was interrupted.", e);
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Candidate check failed!", e.getCause());
+			}
+		}
+
+		verified = layout != null;
+		if (layout == null) {
+			layout = new Candidate(minesCount, getWidth(), getHeight(), candidateSeed(0));
+			layout.getCell(startX, startY);
+		}
+		for (int index = 0; index < getWidth() * getHeight(); index++)
+			if (layout.isMine(index))
+				placeMine(index);
+	}
+
+	/**
+	 * @return Зерно кандидата с данным номером.
+	 */
+	private long candidateSeed(int candidate) {
+		return seed + candidate * 0x9e3779b97f4a7c15L;
+	}
+
+	/**
+	 * Случайное поле-кандидат, которое можно пройти решателем.
+	 */
+	private static final class Candidate extends RandomMinesGenerator {
+
+		Candidate(int mines, int width, int height, long seed) {
+			super(mines, width, height, seed);
+		}
+
+		boolean isMine(int index) {
+			return hasMine(index);
+		}
+
+		/**
+		 * Проходит поле от первого хода, открывая только доказанно безопасные клетки.
+		 *
+		 * @return Стали ли известны все клетки поля.
+		 */
+		boolean isSolvable(int startX, int startY) {
+			getCell(startX, startY).open();
+			Solver solver = new Solver(this);
+			solver.solve();
+			Cell next;
+			while ((next = solver.nextSafeCell()) != null) {
+				solver.update(next.open());
+				solver.solve();
+			}
+			return solver.getUnknownCount() == 0;
+		}
+	}
+}
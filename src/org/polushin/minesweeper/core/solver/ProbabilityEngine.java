@@ -0,0 +1,194 @@
+package org.polushin.minesweeper.core.solver;
+
+import org.polushin.minesweeper.core.field.MineField;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Точные вероятности мин на закрытых клетках.
+ *
+ * Граница разбивается на независимые части, для каждой части считается распределение расстановок
+ * по кол-ву мин в ней. Части считаются параллельно, а их распределения запоминаются и переиспользуются,
+ * пока часть не изменится. Распределения объединяются с весом C(O, R - S): способами расставить
+ * оставшиеся R - S мин по O клеткам вне границы, где R - кол-во ненайденных мин, а S - мин на границе.
+ */
+public class ProbabilityEngine {
+
+	private final Solver solver;
+	private final ForkJoinPool pool;
+
+	private Map<Component, MineDistribution> cache = new HashMap<>();
+	// Логарифмы факториалов для биномиальных весов
+	private double[] logFactorials = {0};
+
+	/**
+	 * @param solver Решатель поля, известные им клетки исключаются из подсчета.
+	 * @param pool Пул потоков для параллельного подсчета частей границы.
+	 *
+	 * @throws IllegalArgumentException Если решатель или пул равны {@code null}.
+	 */
+	public ProbabilityEngine(Solver solver, ForkJoinPool pool) {
+		if (solver == null)
+			throw new IllegalArgumentException("Solver cannot be null!");
+		if (pool == null)
+			throw new IllegalArgumentException("Pool cannot be null!");
+		this.solver = solver;
+		this.pool = pool;
+	}
+
+	/**
+	 * @param solver Решатель поля, известные им клетки исключаются из подсчета.
+	 *
+	 * @throws IllegalArgumentException Если решатель равен {@code null}.
+	 */
+	public ProbabilityEngine(Solver solver) {
+		this(solver, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Считает вероятности по текущему состоянию решателя.
+	 *
+	 * @return Вероятности мин на клетках.
+	 *
+	 * @throws IllegalStateException Если видимое состояние поля не допускает ни одной расстановки мин.
+	 */
+	public MineProbabilities compute() {
+		MineField field = solver.getField();
+		List<Component> components = solver.buildComponents();
+		MineDistribution[] distributions = distributions(components);
+
+		int remaining = field.getMinesCount() - solver.getKnownMines();
+		int frontier = 0;
+		for (Component component : components)
+			frontier += component.vars.length;
+		int other = solver.getUnknownCount() - frontier;
+		double[] weights = binomialWeights(other, remaining, frontier);
+
+		// Произведения распределений частей до i-й и после i-й
+		int count = components.size();
+		double[][] prefix = new double[count + 1][];
+		double[][] suffix = new double[count + 1][];
+		prefix[0] = new double[] {1};
+		suffix[count] = new double[] {1};
+		for (int i = 0; i < count; i++)
+			prefix[i + 1] = multiply(prefix[i], distributions[i].solutions);
+		for (int i = count - 1; i >= 0; i--)
+			suffix[i] = multiply(distributions[i].solutions, suffix[i + 1]);
+
+		double[] probabilities = new double[field.getWidth() * field.getHeight()];
+		Arrays.fill(probabilities, Double.NaN);
+		for (int i = 0; i < count; i++) {
+			// Вес расстановок части с k минами с учетом всех остальных клеток
+			double[] rest = multiply(prefix[i], suffix[i + 1]);
+			MineDistribution distribution = distributions[i];
+			double[] weight = new double[distribution.solutions.length];
+			double total = 0;
+			for (int k = 0; k < weight.length; k++) {
+				for (int s = 0; s < rest.length; s++)
+					weight[k] += rest[s] * weights[k + s];
+				total += distribution.solutions[k] * weight[k];
+			}
+			if (total == 0)
+				throw new IllegalStateException("Field state has no mine layouts!");
+
+			int[] vars = components.get(i).vars;
+			for (int var = 0; var < vars.length; var++) {
+				double mine = 0;
+				for (int k = 0; k < weight.length; k++)
+					mine += distribution.mines[var][k] * weight[k];
+				probabilities[vars[var]] = mine / total;
+			}
+		}
+
+		// Мины вне границы распределены равномерно по остальным неизвестным клеткам
+		double total = 0, expected = 0;
+		double[] all = prefix[count];
+		for (int s = 0; s < all.length; s++) {
+			total += all[s] * weights[s];
+			expected += all[s] * weights[s] * (remaining - s);
+		}
+		if (total == 0)
+			throw new IllegalStateException("Field state has no mine layouts!");
+		double otherProbability = other == 0 ? 0 : expected / total / other;
+
+		for (int index = 0; index < probabilities.length; index++)
+			if (solver.isUnknown(index)) {
+				if (Double.isNaN(probabilities[index]))
+					probabilities[index] = otherProbability;
+			} else
+				probabilities[index] = solver.isMine(index / field.getHeight(), index % field.getHeight()) ? 1 : 0;
+		return new MineProbabilities(field, probabilities);
+	}
+
+	/**
+	 * Берет распределения неизменившихся частей из кеша, остальные считает параллельно.
+	 */
+	private MineDistribution[] distributions(List<Component> components) {
+		MineDistribution[] distributions = new MineDistribution[components.size()];
+		@SuppressWarnings("unchecked")
+		ForkJoinTask<MineDistribution>[] tasks = (ForkJoinTask<MineDistribution>[]) new ForkJoinTask<?>[components.size()];
+		for (int i = 0; i < distributions.length; i++) {
+			Component component = components.get(i);
+			distributions[i] = cache.get(component);
+			if (distributions[i] == null)
+				tasks[i] = pool.submit(() -> MineDistribution.of(component));
+		}
+
+		Map<Component, MineDistribution> used = new HashMap<>();
+		for (int i = 0; i < distributions.length; i++) {
+			if (tasks[i] != null)
+				distributions[i] = tasks[i].join();
+			if (distributions[i] == null)
+				throw new IllegalStateException("Field state has no mine layouts!");
+			used.put(components.get(i), distributions[i]);
+		}
+		cache = used;
+		return distributions;
+	}
+
+	/**
+	 * @return Веса C(other, remaining - s) для s мин на границе, деленные на наибольший из них.
+	 */
+	private double[] binomialWeights(int other, int remaining, int frontier) {
+		if (logFactorials.length <= other) {
+			double[] table = new double[other + 1];
+			for (int i = 1; i <= other; i++)
+				table[i] = table[i - 1] + Math.log(i);
+			logFactorials = table;
+		}
+
+		double[] weights = new double[frontier + 1];
+		double max = Double.NEGATIVE_INFINITY;
+		for (int s = 0; s <= frontier; s++) {
+			int rest = remaining - s;
+			weights[s] = rest < 0 || rest > other ? Double.NEGATIVE_INFINITY :
+			             logFactorials[other] - logFactorials[rest] - logFactorials[other - rest];
+			max = Math.max(max, weights[s]);
+		}
+		for (int s = 0; s <= frontier; s++)
+			weights[s] = Math.exp(weights[s] - max);
+		return weights;
+	}
+
+	/**
+	 * @return Произведение многочленов, нормированное на наибольший коэффициент.
+	 */
+	private static double[] multiply(double[] a, double[] b) {
+		double[] result = new double[a.length + b.length - 1];
+		double max = 0;
+		for (int i = 0; i < a.length; i++)
+			for (int j = 0; j < b.length; j++)
+				result[i + j] += a[i] * b[j];
+		for (double value : result)
+			max = Math.max(max, value);
+		if (max > 0)
+			for (int i = 0; i < result.length; i++)
+				result[i] /= max;
+		return result;
+	}
+}
@@ -0,0 +1,482 @@
+package org.polushin.minesweeper.core.solver;
+
+import org.polushin.minesweeper.core.field.Cell;
+import org.polushin.minesweeper.core.field.InteractResult;
+import org.polushin.minesweeper.core.field.MineField;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Логический решатель по видимому состоянию поля.
+ * Находит клетки, безопасность или заминированность которых следует из открытых чисел:
+ * <ul>
+ * <li>открытие клетки открывает всю ее связную по сторонам область без мин, поэтому закрытая клетка,
+ * соседняя по стороне с открытой, заминирована;</li>
+ * <li>одиночное ограничение: все неизвестные соседи открытой клетки безопасны или все заминированы;</li>
+ * <li>пара ограничений: разность множеств соседей двух близких клеток определяется разностью их чисел;</li>
+ * <li>перебор всех расстановок мин в связной части границы.</li>
+ * </ul>
+ * Решатель обновляется по результатам ходов и пересчитывает только затронутые ими ограничения.
+ */
+public class Solver {
+
+	// Наибольшее кол-во переменных в части границы, которую имеет смысл перебирать полностью
+	private static final int MAX_ENUMERATION_VARS = 24;
+
+	private static final byte UNKNOWN = 0;
+	private static final byte OPENED = 1;
+	private static final byte MINE = 2;
+	private static final byte SAFE = 3;
+
+	private final MineField field;
+	private final int width, height;
+	private final byte[] state;
+	private final byte[] numbers;
+
+	// Открытые клетки, ограничения которых нужно проверить
+	private int[] queue = new int[64];
+	private int queueSize;
+	private final boolean[] queued;
+	// Открытые клетки, изменившиеся с последнего перебора
+	private int[] touched = new int[64];
+	private int touchedSize;
+	private final boolean[] isTouched;
+
+	// Найденные безопасные клетки и мины
+	private int[] safe = new int[64];
+	private int safeSize;
+	private int[] mines = new int[64];
+	private int minesSize;
+
+	private int unknownCells;
+	private int knownMines;
+
+	// Пометки обхода при построении частей границы
+	private final int[] mark;
+	private final int[] localIndex;
+	private int stamp;
+
+	/**
+	 * @param field Поле, на котором уже сделан первый ход.
+	 *
+	 * @throws IllegalArgumentException Если поле равно {@code null} или еще не сгенерировано.
+	 */
+	public Solver(MineField field) {
+		if (field == null)
+			throw new IllegalArgumentException("Field cannot be null!");
+		if (!field.isGenerated())
+			throw new IllegalArgumentException("Field must be generated!");
+		this.field = field;
+		width = field.getWidth();
+		height = field.getHeight();
+		int size = width * height;
+		state = new byte[size];
+		numbers = new byte[size];
+		queued = new boolean[size];
+		isTouched = new boolean[size];
+		mark = new int[size];
+		localIndex = new int[size];
+		unknownCells = size;
+		for (int x = 0; x < width; x++)
+			for (int y = 0; y < height; y++)
+				read(field.getCell(x, y));
+	}
+
+	/**
+	 * Учитывает изменения поля после хода.
+	 *
+	 * @param result Результат хода.
+	 */
+	public void update(InteractResult result) {
+		for (Cell cell : result)
+			read(cell);
+	}
+
+	/**
+	 * Применяет правила до тех пор, пока они находят новые клетки.
+	 *
+	 * @return Найдены ли новые безопасные клетки или мины.
+	 */
+	public boolean solve() {
+		int found = safeSize + minesSize;
+		do {
+			while (queueSize > 0) {
+				int index = queue[--queueSize];
+				queued[index] = false;
+				applySingle(index);
+				applyPairs(index);
+			}
+			applyGlobal();
+			if (queueSize == 0)
+				enumerate();
+		} while (queueSize > 0);
+		return safeSize + minesSize != found;
+	}
+
+	/**
+	 * @return Закрытая клетка, безопасность которой доказана, или {@code null}, если таких нет.
+	 */
+	public Cell nextSafeCell() {
+		while (safeSize > 0) {
+			int index = safe[safeSize - 1];
+			if (state[index] == SAFE)
+				return field.getCell(index / height, index % height);
+			safeSize--;
+		}
+		return null;
+	}
+
+	/**
+	 * @return Заминированная клетка без флага или {@code null}, если таких нет.
+	 */
+	public Cell nextMineCell() {
+		while (minesSize > 0) {
+			Cell cell = field.getCell(mines[minesSize - 1] / height, mines[minesSize - 1] % height);
+			if (!cell.isFlagSet())
+				return cell;
+			minesSize--;
+		}
+		return null;
+	}
+
+	/**
+	 * @return Доказана ли безопасность закрытой клетки.
+	 */
+	public boolean isSafe(int x, int y) {
+		return state[x * height + y] == SAFE;
+	}
+
+	/**
+	 * @return Доказана ли мина на клетке.
+	 */
+	public boolean isMine(int x, int y) {
+		return state[x * height + y] == MINE;
+	}
+
+	/**
+	 * @return Кол-во закрытых клеток, о которых ничего не известно.
+	 */
+	public int getUnknownCount() {
+		return unknownCells;
+	}
+
+	/**
+	 * @return Поле решателя.
+	 */
+	MineField getField() {
+		return field;
+	}
+
+	/**
+	 * @return Кол-во доказанных мин.
+	 */
+	int getKnownMines() {
+		return knownMines;
+	}
+
+	/**
+	 * @return Неизвестна ли клетка.
+	 */
+	boolean isUnknown(int index) {
+		return state[index] == UNKNOWN;
+	}
+
+	/**
+	 * @return Все части границы с текущими неизвестными клетками.
+	 */
+	List<Component> buildComponents() {
+		List<Component> components = new ArrayList<>();
+		int firstStamp = stamp + 1;
+		for (int index = 0; index < state.length; index++) {
+			if (state[index] != OPENED || mark[index] >= firstStamp || need(index) < 0)
+				continue;
+			Component component = buildComponent(index);
+			if (component != null)
+				components.add(component);
+		}
+		return components;
+	}
+
+	/**
+	 * Считывает клетку с поля. Новые открытые клетки становятся ограничениями.
+	 */
+	private void read(Cell cell) {
+		int index = cell.posX * height + cell.posY;
+		if (state[index] == OPENED || !cell.isOpened() || cell.isMine())
+			return;
+		if (state[index] == UNKNOWN)
+			unknownCells--;
+		state[index] = OPENED;
+		numbers[index] = (byte) cell.getMineNeighbors();
+		enqueue(index);
+		enqueueNeighbors(index);
+
+		int x = cell.posX, y = cell.posY;
+		if (x != 0)
+			setClosedMine(x - 1, y);
+		if (x + 1 != width)
+			setClosedMine(x + 1, y);
+		if (y != 0)
+			setClosedMine(x, y - 1);
+		if (y + 1 != height)
+			setClosedMine(x, y + 1);
+	}
+
+	/**
+	 * Отмечает миной соседнюю по стороне с открытой клетку, если она закрыта.
+	 * Открытая клетка могла быть еще не считана с поля.
+	 */
+	private void setClosedMine(int x, int y) {
+		int index = x * height + y;
+		if (state[index] == UNKNOWN && !field.getCell(x, y).isOpened())
+			setMine(index);
+	}
+
+	/**
+	 * Все неизвестные соседи безопасны, если мины уже найдены, или все заминированы, если их ровно столько,
+	 * сколько недостает мин.
+	 */
+	private void applySingle(int index) {
+		int x = index / height, y = index % height;
+		int unknown = 0, need = numbers[index];
+		for (int i = Math.max(0, x - 1); i <= Math.min(width - 1, x + 1); i++)
+			for (int j = Math.max(0, y - 1); j <= Math.min(height - 1, y + 1); j++) {
+				byte neighbor = state[i * height + j];
+				if (neighbor == UNKNOWN)
+					unknown++;
+				else if (neighbor == MINE)
+					need--;
+			}
+		if (unknown == 0 || need != 0 && need != unknown)
+			return;
+		for (int i = Math.max(0, x - 1); i <= Math.min(width - 1, x + 1); i++)
+			for (int j = Math.max(0, y - 1); j <= Math.min(height - 1, y + 1); j++)
+				if (need == 0)
+					setSafe(i * height + j);
+				else
+					setMine(i * height + j);
+	}
+
+	/**
+	 * Сравнивает ограничение A с ограничениями B открытых клеток на расстоянии до двух.
+	 * Если в соседях B вне A недостает столько мин, сколько там неизвестных клеток,
+	 * то все они заминированы, а неизвестные соседи A вне B безопасны.
+	 * Если соседи A входят в соседей B и мин недостает поровну, то соседи B вне A безопасны.
+	 */
+	private void applyPairs(int a) {
+		int needA = need(a);
+		if (needA < 0)
+			return;
+		int ax = a / height, ay = a % height;
+		for (int bx = Math.max(0, ax - 2); bx <= Math.min(width - 1, ax + 2); bx++)
+			for (int by = Math.max(0, ay - 2); by <= Math.min(height - 1, ay + 2); by++) {
+				int b = bx * height + by;
+				if (b == a || state[b] != OPENED)
+					continue;
+				int needB = need(b);
+				if (needB < 0)
+					continue;
+				// Неизвестные соседи только A и только B
+				int onlyA = 0, onlyB = 0;
+				for (int i = Math.min(ax, bx) - 1; i <= Math.max(ax, bx) + 1; i++)
+					for (int j = Math.min(ay, by) - 1; j <= Math.max(ay, by) + 1; j++) {
+						if (i < 0 || i >= width || j < 0 || j >= height || state[i * height + j] != UNKNOWN)
+							continue;
+						boolean inA = Math.abs(i - ax) <= 1 && Math.abs(j - ay) <= 1;
+						boolean inB = Math.abs(i - bx) <= 1 && Math.abs(j - by) <= 1;
+						if (inA && !inB)
+							onlyA++;
+						else if (inB && !inA)
+							onlyB++;
+					}
+				boolean minesB = needB - needA == onlyB;
+				if (onlyB == 0 || !minesB && (onlyA != 0 || needB != needA))
+					continue;
+				for (int i = Math.min(ax, bx) - 1; i <= Math.max(ax, bx) + 1; i++)
+					for (int j = Math.min(ay, by) - 1; j <= Math.max(ay, by) + 1; j++) {
+						if (i < 0 || i >= width || j < 0 || j >= height || state[i * height + j] != UNKNOWN)
+							continue;
+						boolean inA = Math.abs(i - ax) <= 1 && Math.abs(j - ay) <= 1;
+						boolean inB = Math.abs(i - bx) <= 1 && Math.abs(j - by) <= 1;
+						if (inB && !inA) {
+							if (minesB)
+								setMine(i * height + j);
+							else
+								setSafe(i * height + j);
+						} else if (inA && !inB)
+							setSafe(i * height + j);
+					}
+			}
+	}
+
+	/**
+	 * Если все оставшиеся мины найдены, остальные клетки безопасны, а если неизвестных клеток
+	 * осталось ровно столько, сколько мин, то они все заминированы.
+	 */
+	private void applyGlobal() {
+		int remaining = field.getMinesCount() - knownMines;
+		if (unknownCells == 0 || remaining != 0 && remaining != unknownCells)
+			return;
+		for (int index = 0; index < state.length; index++)
+			if (remaining == 0)
+				setSafe(index);
+			else
+				setMine(index);
+	}
+
+	/**
+	 * Перебирает расстановки мин в частях границы, затронутых с последнего перебора.
+	 * Клетки, заминированные во всех расстановках или ни в одной, становятся известными.
+	 */
+	private void enumerate() {
+		int firstStamp = stamp + 1;
+		while (touchedSize > 0) {
+			int seed = touched[--touchedSize];
+			isTouched[seed] = false;
+			// Ограничение уже вошло в одну из перебранных частей
+			if (mark[seed] >= firstStamp || state[seed] != OPENED || need(seed) < 0)
+				continue;
+			Component component = buildComponent(seed);
+			if (component == null || component.vars.length > MAX_ENUMERATION_VARS)
+				continue;
+			long[] mineCounts = new long[component.vars.length];
+			long solutions = component.enumerate(field.getMinesCount() - knownMines, mineCounts);
+			if (solutions == 0)
+				continue;
+			for (int i = 0; i < component.vars.length; i++)
+				if (mineCounts[i] == 0)
+					setSafe(component.vars[i]);
+				else if (mineCounts[i] == solutions)
+					setMine(component.vars[i]);
+		}
+	}
+
+	/**
+	 * Собирает часть границы обходом от ограничения через общие неизвестные клетки.
+	 *
+	 * @return Часть границы или {@code null}, если у ограничения нет неизвестных соседей.
+	 */
+	private Component buildComponent(int seed) {
+		int[] constraints = new int[16];
+		int constraintsSize = 0;
+		int[] vars = new int[16];
+		int varsSize = 0;
+
+		stamp++;
+		constraints[constraintsSize++] = seed;
+		mark[seed] = stamp;
+		for (int c = 0; c < constraintsSize; c++) {
+			int index = constraints[c];
+			int x = index / height, y = index % height;
+			for (int i = Math.max(0, x - 1); i <= Math.min(width - 1, x + 1); i++)
+				for (int j = Math.max(0, y - 1); j <= Math.min(height - 1, y + 1); j++) {
+					int var = i * height + j;
+					if (state[var] != UNKNOWN || mark[var] == stamp)
+						continue;
+					mark[var] = stamp;
+					if (varsSize == vars.length)
+						vars = Arrays.copyOf(vars, varsSize * 2);
+					localIndex[var] = varsSize;
+					vars[varsSize++] = var;
+					// Все открытые соседи переменной входят в ту же часть
+					for (int k = Math.max(0, i - 1); k <= Math.min(width - 1, i + 1); k++)
+						for (int l = Math.max(0, j - 1); l <= Math.min(height - 1, j + 1); l++) {
+							int other = k * height + l;
+							if (state[other] != OPENED || mark[other] == stamp)
+								continue;
+							mark[other] = stamp;
+							if (constraintsSize == constraints.length)
+								constraints = Arrays.copyOf(constraints, constraintsSize * 2);
+							constraints[constraintsSize++] = other;
+						}
+				}
+		}
+		if (varsSize == 0)
+			return null;
+
+		int[][] constraintVars = new int[constraintsSize][];
+		int[] need = new int[constraintsSize];
+		int[] local = new int[8];
+		for (int c = 0; c < constraintsSize; c++) {
+			int index = constraints[c];
+			int x = index / height, y = index % height;
+			int count = 0;
+			for (int i = Math.max(0, x - 1); i <= Math.min(width - 1, x + 1); i++)
+				for (int j = Math.max(0, y - 1); j <= Math.min(height - 1, y + 1); j++)
+					if (state[i * height + j] == UNKNOWN && mark[i * height + j] == stamp)
+						local[count++] = localIndex[i * height + j];
+			constraintVars[c] = Arrays.copyOf(local, count);
+			need[c] = need(index);
+		}
+		return new Component(Arrays.copyOf(vars, varsSize), constraintVars, need);
+	}
+
+	/**
+	 * @return Кол-во ненайденных мин среди соседей открытой клетки или -1, если неизвестных соседей нет.
+	 */
+	private int need(int index) {
+		int x = index / height, y = index % height;
+		int need = numbers[index];
+		boolean hasUnknown = false;
+		for (int i = Math.max(0, x - 1); i <= Math.min(width - 1, x + 1); i++)
+			for (int j = Math.max(0, y - 1); j <= Math.min(height - 1, y + 1); j++) {
+				byte neighbor = state[i * height + j];
+				if (neighbor == MINE)
+					need--;
+				else if (neighbor == UNKNOWN)
+					hasUnknown = true;
+			}
+		return hasUnknown ? need : -1;
+	}
+
+	private void setMine(int index) {
+		if (state[index] != UNKNOWN)
+			return;
+		state[index] = MINE;
+		unknownCells--;
+		knownMines++;
+		if (minesSize == mines.length)
+			mines = Arrays.copyOf(mines, minesSize * 2);
+		mines[minesSize++] = index;
+		enqueueNeighbors(index);
+	}
+
+	private void setSafe(int index) {
+		if (state[index] != UNKNOWN)
+			return;
+		state[index] = SAFE;
+		unknownCells--;
+		if (safeSize == safe.length)
+			safe = Arrays.copyOf(safe, safeSize * 2);
+		safe[safeSize++] = index;
+		enqueueNeighbors(index);
+	}
+
+	/**
+	 * Ставит в очередь открытых соседей клетки, ограничения которых изменились.
+	 */
+	private void enqueueNeighbors(int index) {
+		int x = index / height, y = index % height;
+		for (int i = Math.max(0, x - 1); i <= Math.min(width - 1, x + 1); i++)
+			for (int j = Math.max(0, y - 1); j <= Math.min(height - 1, y + 1); j++)
+				if (state[i * height + j] == OPENED)
+					enqueue(i * height + j);
+	}
+
+	private void enqueue(int index) {
+		if (!queued[index]) {
+			queued[index] = true;
+			if (queueSize == queue.length)
+				queue = Arrays.copyOf(queue, queueSize * 2);
+			queue[queueSize++] = index;
+		}
+		if (!isTouched[index]) {
+			isTouched[index] = true;
+			if (touchedSize == touched.length)
+				touched = Arrays.copyOf(touched, touchedSize * 2);
+			touched[touchedSize++] = index;
+		}
+	}
+}
@@ -1,15 +1,17 @@
 package org.polushin.minesweeper.cui;
 
+import org.polushin.minesweeper.core.Autosave;
+import org.polushin.minesweeper.core.BoardMode;
 import org.polushin.minesweeper.core.GameHandler;
 import org.polushin.minesweeper.core.GameTimer;
 import org.polushin.minesweeper.core.PlayerScore;
+import org.polushin.minesweeper.core.ScoreOrder;
+import org.polushin.minesweeper.core.ScoreStorage;
 import org.polushin.minesweeper.core.field.Cell;
 import org.polushin.minesweeper.core.field.InteractResult;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.*;
+import java.util.Arrays;
 
 public class TextUI extends GameTimer {
 
@@ -17,35 +19,164 @@ public class TextUI extends GameTimer {
 	private static final char MINE = '*';
 	private static final char FLAG = '#';
 
-	private char[][] field;
-	private volatile int currTime;
+	private static final String ESC = "\u001b[";
+	private static final String PROMPT = "> ";
+
+	// Наибольшая сторона поля в сессиях удаленных игроков
+	public static final int REMOTE_MAX_SIZE = 50;
+	// Наибольшая длина строки команды удаленного игрока, более длинная строка завершает сессию
+	public static final int REMOTE_MAX_LINE_LENGTH = 1024;
+	// Наибольший размер кадра поля в символах
+	private static final long MAX_FRAME_LENGTH = Integer.MAX_VALUE - 8;
+
 	private final GameHandler game;
+	private final BufferedReader in;
+	private final PrintWriter out;
+	private final boolean ansi;
+	// Сессия удаленного игрока, размеры поля и запись повторов которой ограничены
+	private final boolean remote;
+	// Каталог повторов, заданный сервером для удаленной сессии, или null, если запись запрещена
+	private final File remoteReplays;
+	private final StringBuilder messages = new StringBuilder();
 
-	public TextUI(File scores) {
+	// Кадр поля целиком, клетка (x, y) находится в frame[x * rowLength + 2 * y]
+	private char[] frame;
+	private int rowLength;
+	// Позиции в кадре, изменившиеся с последней отрисовки (для режима ANSI)
+	private int[] dirty = new int[64];
+	private int dirtyCount;
+	private boolean fullRedraw = true;
+
+	private volatile int currTime;
+	private boolean running;
+	// Автосохранение игры или null, если игра не сохраняется
+	private Autosave autosave;
+
+	/**
+	 * @param scores Таблица рекордов.
+	 * @param in Поток команд игрока.
+	 * @param out Поток вывода поля.
+	 * @param ansi Перерисовывать только изменившиеся клетки управляющими последовательностями терминала.
+	 */
+	public TextUI(ScoreStorage scores, Reader in, Writer out, boolean ansi) {
+		this(scores, in, out, ansi, false, null);
+	}
+
+	private TextUI(ScoreStorage scores, Reader in, Writer out, boolean ansi, boolean remote, File remoteReplays) {
+		this.ansi = ansi;
+		this.remote = remote;
+		this.remoteReplays = remoteReplays;
+		this.in = new BufferedReader(in);
+		this.out = new PrintWriter(new BufferedWriter(out, 1 << 16));
 		game = new GameHandler(this, scores, "noname");
 		createField(game.getWidth(), game.getHeight());
 	}
 
+	/**
+	 * @param scores Файл с предыдущими рекордами.
+	 * @param ansi Перерисовывать только изменившиеся клетки управляющими последовательностями терминала.
+	 */
+	public TextUI(File scores, boolean ansi) {
+		this(new ScoreStorage(scores), new InputStreamReader(System.in), new OutputStreamWriter(System.out), ansi);
+	}
+
+	/**
+	 * Продолжает сохраненную игру, если она есть, и сохраняет начатую игру при выходе.
+	 *
+	 * @param scores Файл с предыдущими рекордами.
+	 * @param save Файл сохранения начатой игры.
+	 * @param ansi Перерисовывать только изменившиеся клетки управляющими последовательностями терминала.
+	 */
+	public TextUI(File scores, File save, boolean ansi) {
+		this(scores, ansi);
+		autosave = new Autosave(game, save, Autosave.DEFAULT_INTERVAL_SECONDS);
+		if (autosave.resume()) {
+			createField(game.getWidth(), game.getHeight());
+			fillField();
+			println("Saved game resumed.");
+		}
+	}
+
+	public TextUI(File scores) {
+		this(scores, false);
+	}
+
+	/**
+	 * Сессия удаленного игрока на общем сервере. Стороны поля ограничены {@link #REMOTE_MAX_SIZE},
+	 * чтобы одна сессия не могла занять память и процессор остальных.
+	 * Игрок не выбирает каталог повторов: команда {@code record on} пишет их только в каталог сервера.
+	 *
+	 * @param scores Общая таблица рекордов.
+	 * @param in Поток команд игрока.
+	 * @param out Поток вывода поля.
+	 * @param replays Каталог повторов сервера или {@code null}, если запись повторов запрещена.
+	 *
+	 * @return Новая сессия.
+	 */
+	public static TextUI remoteSession(ScoreStorage scores, Reader in, Writer out, File replays) {
+		return new TextUI(scores, in, out, false, true, replays);
+	}
+
+	/**
+	 * Обрабатывает команды до их окончания или команды выхода.
+	 */
 	public void runGame() throws IOException {
 		String line;
-		BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+		running = true;
 		printField();
-		System.out.print("> ");
-		while ((line = reader.readLine()) != null) {
+		while (running && (line = readLine()) != null) {
 			if (line.isEmpty()) {
-				System.out.print("> ");
+				printPrompt();
 				continue;
 			}
 			String[] split = line.split(" ");
 			String cmd = split[0];
 			String[] args = new String[split.length - 1];
 			System.arraycopy(split, 1, args, 0, args.length);
-			if (!executeCommand(cmd, args))
-				System.out.println("Command not found.");
-			else
+			boolean executed;
+			try {
+				executed = executeCommand(cmd, args);
+			} catch (IllegalArgumentException | IllegalStateException e) {
+				println(e.getMessage());
+				printPrompt();
+				continue;
+			}
+			if (!executed) {
+				println("Command not found.");
+				printPrompt();
+			} else if (running)
 				printField();
-			System.out.print("> ");
 		}
+		if (autosave != null)
+			autosave.close();
+		game.close();
+		out.flush();
+	}
+
+	/**
+	 * Читает строку команды. Строка удаленного игрока ограничена {@link #REMOTE_MAX_LINE_LENGTH},
+	 * чтобы одна сессия не могла занять память сервера.
+	 *
+	 * @return Строку без перевода строки или {@code null}, если команды закончились.
+	 *
+	 * @throws IOException Если строка удаленного игрока слишком длинная.
+	 */
+	private String readLine() throws IOException {
+		if (!remote)
+			return in.readLine();
+		StringBuilder line = new StringBuilder();
+		int c;
+		while ((c = in.read()) != -1 && c != '\n') {
+			if (line.length() == REMOTE_MAX_LINE_LENGTH)
+				throw new IOException("Command line is too long!");
+			line.append((char) c);
+		}
+		if (c == -1 && line.length() == 0)
+			return null;
+		int length = line.length();
+		if (length > 0 && line.charAt(length - 1) == '\r')
+			line.setLength(length - 1);
+		return line.toString();
 	}
 
 	private boolean executeCommand(String cmd, String[] args) {
@@ -67,6 +198,9 @@ public class TextUI extends GameTimer {
 			case "open":
 				commandOpen(args);
 				break;
+			case "record":
+				commandRecord(args);
+				break;
 			case "exit":
 				commandExit(args);
 				break;
@@ -76,28 +210,109 @@ public class TextUI extends GameTimer {
 		return true;
 	}
 
+	/**
+	 * Выводит поле, накопленные сообщения и приглашение к вводу одной записью.
+	 */
 	private void printField() {
-		if (game.isGameWon()) {
-			System.out.println("YOU WIN!");
-			return;
-		} else if (game.isGameOver()) {
-			System.out.println("YOU LOSE!");
+		if (game.isGameWon() || game.isGameOver()) {
+			if (ansi) {
+				out.print(ESC + "H" + ESC + "2J");
+				fullRedraw = true;
+			}
+			printMessages();
+			out.println(game.isGameWon() ? "YOU WIN!" : "YOU LOSE!");
+			printPrompt();
 			return;
 		}
-		for (char[] line : field) {
-			for (char cell : line)
-				System.out.print(cell + " ");
-			System.out.println('\n');
+
+		if (!ansi) {
+			printMessages();
+			out.write(frame, 0, frame.length);
+			out.println(String.format("%d/%d, %d sec.", game.getFlagsCount(), game.getMinesCount(), currTime));
+			printPrompt();
+			return;
 		}
-		System.out.println(String.format("%d/%d, %d sec.", game.getFlagsCount(), game.getMinesCount(), currTime));
+
+		if (fullRedraw) {
+			out.print(ESC + "H" + ESC + "2J");
+			out.write(frame, 0, frame.length);
+		} else
+			for (int i = 0; i < dirtyCount; i++) {
+				int pos = dirty[i];
+				moveCursor(pos / rowLength, pos % rowLength);
+				out.write(frame[pos]);
+			}
+		fullRedraw = false;
+		dirtyCount = 0;
+
+		// Строка статистики и область сообщений под полем
+		int statusRow = frame.length / rowLength;
+		moveCursor(statusRow, 0);
+		out.print(ESC + "2K");
+		out.print(String.format("%d/%d, %d sec.", game.getFlagsCount(), game.getMinesCount(), currTime));
+		moveCursor(statusRow + 1, 0);
+		out.print(ESC + "J");
+		printMessages();
+		printPrompt();
+	}
+
+	/**
+	 * Перемещает курсор терминала на заданную строку и столбец (начиная с нуля).
+	 */
+	private void moveCursor(int row, int column) {
+		out.print(ESC);
+		out.print(row + 1);
+		out.print(';');
+		out.print(column + 1);
+		out.print('H');
+	}
+
+	/**
+	 * Добавляет строку к сообщениям, выводимым вместе со следующим кадром.
+	 */
+	private void println(String line) {
+		messages.append(line).append('\n');
+	}
+
+	private void printMessages() {
+		out.append(messages);
+		messages.setLength(0);
+	}
+
+	private void printPrompt() {
+		printMessages();
+		out.print(PROMPT);
+		out.flush();
 	}
 
 	private void createField(int width, int height) {
-		field = new char[game.getWidth()][game.getHeight()];
+		// Между строками поля в обычном режиме выводится пустая строка
+		rowLength = 2 * height + (ansi ? 1 : 2);
+		frame = new char[width * rowLength];
+		Arrays.fill(frame, ' ');
+		for (int i = 0; i < width; i++) {
+			for (int j = 0; j < height; j++)
+				frame[i * rowLength + 2 * j] = CLOSED;
+			frame[(i + 1) * rowLength - 1] = '\n';
+			if (!ansi)
+				frame[(i + 1) * rowLength - 2] = '\n';
+		}
+		dirtyCount = 0;
+		fullRedraw = true;
+	}
 
+	/**
+	 * Заполняет кадр открытыми клетками и флагами уже начатой игры.
+	 */
+	private void fillField() {
 		for (int i = 0; i < game.getWidth(); i++)
-			for (int j = 0; j < game.getHeight(); j++)
-				field[i][j] = CLOSED;
+			for (int j = 0; j < game.getHeight(); j++) {
+				Cell cell = game.getCell(i, j);
+				if (cell.isFlagSet())
+					frame[i * rowLength + 2 * j] = FLAG;
+				else if (cell.isOpened())
+					frame[i * rowLength + 2 * j] = cell.isMine() ? MINE : (char) ('0' + cell.getMineNeighbors());
+			}
 	}
 
 	@Override
@@ -114,13 +329,33 @@ public class TextUI extends GameTimer {
 				value = FLAG;
 			else
 				value = (char) ('0' + cell.getMineNeighbors());
-			field[cell.posX][cell.posY] = value;
+			int pos = cell.posX * rowLength + 2 * cell.posY;
+			if (frame[pos] != value) {
+				frame[pos] = value;
+				markDirty(pos);
+			}
+		}
+	}
+
+	/**
+	 * Запоминает изменившуюся позицию кадра.
+	 * Если изменилась значительная часть поля, дешевле перерисовать кадр целиком.
+	 */
+	private void markDirty(int pos) {
+		if (!ansi || fullRedraw)
+			return;
+		if (dirtyCount == frame.length / 16) {
+			fullRedraw = true;
+			return;
 		}
+		if (dirtyCount == dirty.length)
+			dirty = Arrays.copyOf(dirty, dirtyCount * 2);
+		dirty[dirtyCount++] = pos;
 	}
 
 	private void commandOpen(String[] args) {
 		if (args.length != 2) {
-			System.out.println("Need args: <x> <y>");
+			println("Need args: <x> <y>");
 			return;
 		}
 		int x, y;
@@ -128,7 +363,7 @@ public class TextUI extends GameTimer {
 			x = Integer.parseInt(args[0]);
 			y = Integer.parseInt(args[1]);
 		} catch (NumberFormatException e) {
-			System.out.println("Wrong args.");
+			println("Wrong args.");
 			return;
 		}
 		updateCells(game.openCell(x, y));
@@ -136,7 +371,7 @@ public class TextUI extends GameTimer {
 
 	private void commandFlag(String[] args) {
 		if (args.length != 2) {
-			System.out.println("Need args: <x> <y>");
+			println("Need args: <x> <y>");
 			return;
 		}
 		int x, y;
@@ -144,46 +379,112 @@ public class TextUI extends GameTimer {
 			x = Integer.parseInt(args[0]);
 			y = Integer.parseInt(args[1]);
 		} catch (NumberFormatException e) {
-			System.out.println("Wrong args.");
+			println("Wrong args.");
 			return;
 		}
 		updateCells(game.markCell(x, y));
 	}
 
 	private void commandReset(String[] args) {
-		if (args.length != 3) {
-			System.out.println("Need args: <mines> <width> <height>");
+		if (args.length != 3 && args.length != 4) {
+			println("Need args: <mines> <width> <height> [random|noguess]");
 			return;
 		}
 		int mines, width, height;
+		BoardMode mode = game.getBoardMode();
 		try {
 			mines = Integer.parseInt(args[0]);
 			width = Integer.parseInt(args[1]);
 			height = Integer.parseInt(args[2]);
-		} catch (NumberFormatException e) {
-			System.out.println("Wrong args.");
+			if (args.length == 4)
+				mode = BoardMode.valueOf(args[3].replace("noguess", "no_guess").toUpperCase());
+		} catch (IllegalArgumentException e) {
+			println("Wrong args.");
+			return;
+		}
+		if (remote && (width > REMOTE_MAX_SIZE || height > REMOTE_MAX_SIZE)) {
+			println("Field size is limited to " + REMOTE_MAX_SIZE + "x" + REMOTE_MAX_SIZE + " on this server.");
+			return;
+		}
+		if (width > 0 && height > 0 && (long) width * (2L * height + 2) > MAX_FRAME_LENGTH) {
+			println("Field is too large for text mode.");
 			return;
 		}
-		game.restartGame(mines, width, height);
+		game.restartGame(mines, width, height, mode);
 		createField(width, height);
 	}
 
 	private void commandNick(String[] args) {
 		if (args.length != 1) {
-			System.out.println("Need arg: <nick>");
+			println("Need arg: <nick>");
+			return;
+		}
+		if (args[0].length() > PlayerScore.MAX_NICK_LENGTH) {
+			println("Nick is limited to " + PlayerScore.MAX_NICK_LENGTH + " characters.");
 			return;
 		}
 		game.setNick(args[0]);
-		System.out.println("Nick set.");
+		println("Nick set.");
 	}
 
 	private void commandRecords(String[] args) {
-		System.out.println("Scores:");
-		for (PlayerScore score : game.getScoreTable())
-			System.out.println(score.toString());
+		ScoreOrder order = ScoreOrder.TIME;
+		if (args.length == 1 && args[0].equals("3bv"))
+			order = ScoreOrder.THREE_BV_RATE;
+		else if (args.length != 0 && !(args.length == 1 && args[0].equals("time"))) {
+			println("Need args: [time|3bv]");
+			return;
+		}
+		println("Scores (" + game.getBoardConfig() + "):");
+		for (PlayerScore score : game.getScoreTable(order))
+			println(score.toString());
+		int rank = game.getPlayerRank(order);
+		if (rank != 0)
+			println("Your place: " + rank);
+	}
+
+	private void commandRecord(String[] args) {
+		if (remote) {
+			commandRemoteRecord(args);
+			return;
+		}
+		if (args.length != 1) {
+			println("Need arg: <directory|off>");
+			return;
+		}
+		if (args[0].equals("off")) {
+			game.setReplayDirectory(null);
+			println("Recording stopped.");
+			return;
+		}
+		File directory = new File(args[0]);
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			println("Cannot create directory.");
+			return;
+		}
+		game.setReplayDirectory(directory);
+		println("Recording games to " + directory + ".");
+	}
+
+	private void commandRemoteRecord(String[] args) {
+		if (remoteReplays == null) {
+			println("Recording is disabled on this server.");
+			return;
+		}
+		if (args.length != 1 || !args[0].equals("on") && !args[0].equals("off")) {
+			println("Need arg: <on|off>");
+			return;
+		}
+		if (args[0].equals("off")) {
+			game.setReplayDirectory(null);
+			println("Recording stopped.");
+			return;
+		}
+		game.setReplayDirectory(remoteReplays);
+		println("Recording games on server.");
 	}
 
 	private void commandExit(String[] args) {
-		System.exit(0);
+		running = false;
 	}
 }
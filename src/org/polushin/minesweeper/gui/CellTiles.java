@@ -0,0 +1,155 @@
+package org.polushin.minesweeper.gui;
+
+import org.polushin.minesweeper.core.field.Cell;
+
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import javax.swing.border.Border;
+import javax.swing.border.EtchedBorder;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * Заранее отрисованные изображения клеток поля заданного размера.
+ */
+public class CellTiles {
+
+	public static final int SIDE_SIZE = 25;
+	private static final int FONT_SIZE = 16;
+	private static final Border RAISED_BORDER = BorderFactory.createRaisedBevelBorder();
+	private static final Border LOWERED_BORDER = BorderFactory.createLoweredBevelBorder();
+	private static final Border EMPTY_BORDER = BorderFactory.createEtchedBorder(EtchedBorder.LOWERED);
+	private static BufferedImage FLAG_IMAGE;
+	private static BufferedImage MINE_IMAGE;
+
+	static {
+		try {
+			FLAG_IMAGE = ImageIO.read(CellTiles.class.getResource("resources/flag.png"));
+			MINE_IMAGE = ImageIO.read(CellTiles.class.getResource("resources/mine.png"));
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private final int size;
+	private final Image closed, pressed, flag;
+	private final Image mine, flaggedMine, explodedMine;
+	private final Image[] numbers = new Image[9];
+	private final Image[] overflowNumbers = new Image[9];
+
+	/**
+	 * @param size Длина стороны клетки в пикселях.
+	 */
+	public CellTiles(int size) {
+		if (FLAG_IMAGE == null || MINE_IMAGE == null)
+			throw new RuntimeException("Images not loaded!");
+		this.size = size;
+		closed = createTile(Color.WHITE, RAISED_BORDER, null, 0);
+		pressed = createTile(Color.WHITE, LOWERED_BORDER, null, 0);
+		flag = createTile(Color.WHITE, RAISED_BORDER, FLAG_IMAGE, 0);
+		mine = createTile(Color.YELLOW, EMPTY_BORDER, MINE_IMAGE, 0);
+		flaggedMine = createTile(Color.GREEN, EMPTY_BORDER, MINE_IMAGE, 0);
+		explodedMine = createTile(Color.RED, EMPTY_BORDER, MINE_IMAGE, 0);
+		for (int i = 0; i < numbers.length; i++) {
+			numbers[i] = createTile(Color.WHITE, EMPTY_BORDER, null, i);
+			overflowNumbers[i] = createTile(Color.MAGENTA, EMPTY_BORDER, null, i);
+		}
+	}
+
+	/**
+	 * @return Длина стороны клетки в пикселях.
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * @param cell Клетка или {@code null}, если поле еще не сгенерировано.
+	 *
+	 * @return Изображение клетки в соответствии с ее состоянием.
+	 */
+	Image getTile(Cell cell) {
+		if (cell == null)
+			return closed;
+		if (!cell.isOpened())
+			return cell.isFlagSet() ? flag : closed;
+		if (cell.isMine())
+			return cell.isFlagSet() ? flaggedMine : mine;
+		return cell.isFlagsOverflow() ? overflowNumbers[cell.getMineNeighbors()] : numbers[cell.getMineNeighbors()];
+	}
+
+	/**
+	 * @return Изображение нажатой закрытой клетки.
+	 */
+	Image getPressed() {
+		return pressed;
+	}
+
+	/**
+	 * @return Изображение мины, на которой произошел взрыв.
+	 */
+	Image getExplodedMine() {
+		return explodedMine;
+	}
+
+	/**
+	 * Рисует изображение клетки.
+	 */
+	private Image createTile(Color background, Border border, Image icon, int number) {
+		BufferedImage tile = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = tile.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+
+		g.setColor(background);
+		g.fillRect(0, 0, size, size);
+
+		if (icon != null)
+			g.drawImage(icon, 0, 0, size, size, null);
+
+		if (number > 0) {
+			Font font = new Font("Arial", Font.BOLD, Math.max(1, FONT_SIZE * size / SIDE_SIZE));
+			FontMetrics metrics = g.getFontMetrics(font);
+			String text = String.valueOf(number);
+			g.setFont(font);
+			g.setColor(getNumberColor(number));
+			g.drawString(text, (size - metrics.stringWidth(text)) / 2,
+			             (size - metrics.getHeight()) / 2 + metrics.getAscent());
+		}
+
+		// Рамки берут свои цвета из фона компонента
+		JComponent component = new JLabel();
+		component.setBackground(background);
+		border.paintBorder(component, g, 0, 0, size, size);
+
+		g.dispose();
+		return tile;
+	}
+
+	/**
+	 * Цвет цифры на клетке.
+	 */
+	private static Color getNumberColor(int number) {
+		switch (number) {
+			case 1:
+				return new Color(11, 36, 251);
+			case 2:
+				return new Color(15, 127, 18);
+			case 3:
+				return new Color(252, 13, 27);
+			case 4:
+				return new Color(21, 1, 77);
+			case 5:
+				return new Color(63, 12, 24);
+			case 6:
+				return new Color(121, 210, 193);
+			case 7:
+				return Color.BLACK;
+			case 8:
+				return Color.GRAY;
+			default:
+				return null;
+		}
+	}
+}
@@ -1,33 +1,62 @@
 package org.polushin.minesweeper.gui;
 
+import org.polushin.minesweeper.core.BoardMode;
 import org.polushin.minesweeper.core.GameHandler;
 import org.polushin.minesweeper.core.field.Cell;
 import org.polushin.minesweeper.core.field.InteractResult;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
 
 /**
  * Рамка игрового поля.
+ * Рисует все клетки одним компонентом из заранее отрисованных изображений.
+ * Отрисовываются только клетки в видимой области, поэтому поле можно прокручивать и масштабировать
+ * при любых его размерах.
  */
 public class GameFieldFrame extends JPanel {
 
 	private static final Font STATE_FONT = new Font("Arial", Font.BOLD, 40);
+	private static final int MIN_SIDE_SIZE = 5;
+	private static final int MAX_SIDE_SIZE = 50;
+	private static final int ZOOM_STEP = 2;
 
 	private final GameHandler game;
 	private final GameStatsDisplay stats;
+	private final MoveTimings timings = new MoveTimings();
+
+	private CellTiles tiles = new CellTiles(CellTiles.SIDE_SIZE);
 
-	private CellButton[][] buttons;
 	private State gameState;
+	// Нажатая клетка и клетка взрыва, либо -1
+	private int pressedX = -1, pressedY = -1;
+	private int explodedX = -1, explodedY = -1;
 
 	/**
 	 * @param game Основной объект игры.
 	 */
 	public GameFieldFrame(GameHandler game, GameStatsDisplay statsDisplay) {
+		this(game, statsDisplay, true);
+	}
+
+	/**
+	 * @param game Основной объект игры.
+	 * @param interactive Делаются ли ходы мышью. Иначе поле только отображается и масштабируется.
+	 */
+	public GameFieldFrame(GameHandler game, GameStatsDisplay statsDisplay, boolean interactive) {
 		this.game = game;
 		this.stats = statsDisplay;
 		statsDisplay.resetGame(game.getMinesCount());
 		statsDisplay.setNick(game.getNick());
+		InteractListener listener = new InteractListener();
+		if (interactive) {
+			addMouseListener(listener);
+			addMouseMotionListener(listener);
+		}
+		addMouseWheelListener(listener);
 		initNewSize(game.getWidth(), game.getHeight());
 	}
 
@@ -37,9 +66,10 @@ public class GameFieldFrame extends JPanel {
 	 * @param mines Кол-во мин.
 	 * @param width Ширина поля.
 	 * @param height Высота поля.
+	 * @param mode Способ генерации поля.
 	 */
-	public void restartGame(int mines, int width, int height) {
-		game.restartGame(mines, width, height);
+	public void restartGame(int mines, int width, int height, BoardMode mode) {
+		game.restartGame(mines, width, height, mode);
 		stats.resetGame(mines);
 		initNewSize(width, height);
 	}
@@ -67,17 +97,73 @@ public class GameFieldFrame extends JPanel {
 		initNewSize(width, height);
 	}
 
+	/**
+	 * Перезапускает игру и пересоздает поле.
+	 *
+	 * @param mines Кол-во мин.
+	 * @param width Ширина поля.
+	 * @param height Высота поля.
+	 * @param mode Способ генерации поля.
+	 * @param seed Зерно генерации поля.
+	 */
+	public void restartGame(int mines, int width, int height, BoardMode mode, long seed) {
+		game.restartGame(mines, width, height, mode, seed);
+		stats.resetGame(mines);
+		initNewSize(width, height);
+	}
+
+	/**
+	 * Пересоздает поле после того, как обработчик продолжил сохраненную игру.
+	 */
+	public void gameResumed() {
+		stats.resumeGame(game.getMinesCount(), game.getFlagsCount());
+		stats.setNick(game.getNick());
+		initNewSize(game.getWidth(), game.getHeight());
+	}
+
 	private void initNewSize(int width, int height) {
-		removeAll();
 		gameState = State.NONE;
-		setSize(height * CellButton.SIDE_SIZE, width * CellButton.SIDE_SIZE);
-		buttons = new CellButton[width][height];
-		setLayout(new GridLayout(width, height));
-
-		for (int i = 0; i < width; i++)
-			for (int j = 0; j < height; j++)
-				add(buttons[i][j] = new CellButton(this, i, j));
-		validate();
+		pressedX = pressedY = explodedX = explodedY = -1;
+		updateSize();
+		repaint();
+	}
+
+	/**
+	 * Устанавливает размеры компонента по размерам поля и текущему масштабу.
+	 */
+	private void updateSize() {
+		Dimension size = new Dimension(game.getHeight() * tiles.getSize(), game.getWidth() * tiles.getSize());
+		setPreferredSize(size);
+		setSize(size);
+		revalidate();
+	}
+
+	/**
+	 * Изменяет масштаб поля, оставляя точку под курсором на месте.
+	 *
+	 * @param steps Кол-во шагов уменьшения масштаба (отрицательное для увеличения).
+	 * @param anchor Точка под курсором.
+	 */
+	private void zoom(int steps, Point anchor) {
+		int oldSide = tiles.getSize();
+		int side = Math.max(MIN_SIDE_SIZE, Math.min(MAX_SIDE_SIZE, oldSide - steps * ZOOM_STEP));
+		if (side == oldSide)
+			return;
+
+		JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, this);
+		Point view = viewport == null ? new Point() : viewport.getViewPosition();
+
+		tiles = new CellTiles(side);
+		updateSize();
+
+		if (viewport != null) {
+			int viewX = (int) ((long) anchor.x * side / oldSide) - (anchor.x - view.x);
+			int viewY = (int) ((long) anchor.y * side / oldSide) - (anchor.y - view.y);
+			Dimension extent = viewport.getExtentSize();
+			viewX = Math.max(0, Math.min(viewX, getWidth() - extent.width));
+			viewY = Math.max(0, Math.min(viewY, getHeight() - extent.height));
+			viewport.setViewPosition(new Point(viewX, viewY));
+		}
 		repaint();
 	}
 
@@ -87,17 +173,38 @@ public class GameFieldFrame extends JPanel {
 	void openCell(int x, int y) {
 		if (game.isGameOver() || game.isGameWon())
 			return;
+		long start = System.nanoTime();
 		InteractResult result = game.openCell(x, y);
-		update(result);
 		if (result.isExplode()) {
 			gameState = State.LOSE;
-			buttons[x][y].setBackground(Color.RED);
+			explodedX = x;
+			explodedY = y;
 		}
+		update(result);
 
 		if (game.isGameWon()) {
 			gameState = State.WIN;
 			repaint();
 		}
+		recordMoveTime(start);
+	}
+
+	@Override
+	protected void paintComponent(Graphics g) {
+		int side = tiles.getSize();
+		Rectangle clip = g.getClipBounds();
+		if (clip == null)
+			clip = new Rectangle(0, 0, getWidth(), getHeight());
+
+		// Клетка (x, y) рисуется в столбце y и строке x
+		int fromX = Math.max(0, clip.y / side);
+		int toX = Math.min(game.getWidth(), (clip.y + clip.height + side - 1) / side);
+		int fromY = Math.max(0, clip.x / side);
+		int toY = Math.min(game.getHeight(), (clip.x + clip.width + side - 1) / side);
+
+		for (int x = fromX; x < toX; x++)
+			for (int y = fromY; y < toY; y++)
+				g.drawImage(getTile(x, y), y * side, x * side, null);
 	}
 
 	@Override
@@ -118,12 +225,13 @@ public class GameFieldFrame extends JPanel {
 	}
 
 	/**
-	 * Рисует надпись по центру экрана и обрамляет ее фоном.
+	 * Рисует надпись по центру видимой части поля и обрамляет ее фоном.
 	 */
 	private void drawCenter(Graphics g, String text) {
 		FontMetrics metrics = g.getFontMetrics(STATE_FONT);
-		int textX = (getWidth() - metrics.stringWidth(text)) / 2;
-		int textY = (getHeight() - metrics.getHeight()) / 2 + metrics.getAscent();
+		Rectangle visible = getVisibleRect();
+		int textX = visible.x + (visible.width - metrics.stringWidth(text)) / 2;
+		int textY = visible.y + (visible.height - metrics.getHeight()) / 2 + metrics.getAscent();
 		int rectX = textX - 10;
 		int rectY = textY - metrics.getHeight() + 10;
 		int rectWidth = metrics.stringWidth(text) + 20;
@@ -144,6 +252,7 @@ public class GameFieldFrame extends JPanel {
 		if (game.isGameWon() || game.isGameOver())
 			return;
 
+		long start = System.nanoTime();
 		int flags = game.getFlagsCount();
 		update(game.markCell(x, y));
 
@@ -156,17 +265,146 @@ public class GameFieldFrame extends JPanel {
 			gameState = State.WIN;
 			repaint();
 		}
+		recordMoveTime(start);
+	}
+
+	/**
+	 * Учитывает время обработки хода, если замеры включены.
+	 */
+	private void recordMoveTime(long start) {
+		if (!MoveTimings.ENABLED)
+			return;
+		timings.record(start);
+		if (gameState != State.NONE)
+			timings.report(gameState == State.WIN ? "Won" : "Lost");
 	}
 
 	/**
-	 * Обновляет клетки по итератору.
+	 * Перерисовывает прямоугольник, охватывающий изменившиеся клетки.
 	 */
 	private void update(InteractResult result) {
-		for (Cell cell : result)
-			buttons[cell.posX][cell.posY].updateState(cell);
+		if (result.isExplode()) {
+			repaint();
+			return;
+		}
+		if (result.size() == 0)
+			return;
+		int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+		int maxX = -1, maxY = -1;
+		for (Cell cell : result) {
+			minX = Math.min(minX, cell.posX);
+			minY = Math.min(minY, cell.posY);
+			maxX = Math.max(maxX, cell.posX);
+			maxY = Math.max(maxY, cell.posY);
+		}
+		repaintCells(minX, minY, maxX, maxY);
+	}
 
-		// FIXME - Некоторые клетки не перерисовываются на поле, требуется вызывать принудительную отрисовку.
-		repaint();
+	/**
+	 * Перерисовывает прямоугольник клеток, включая границы.
+	 */
+	private void repaintCells(int fromX, int fromY, int toX, int toY) {
+		int side = tiles.getSize();
+		repaint(fromY * side, fromX * side, (toY - fromY + 1) * side, (toX - fromX + 1) * side);
+	}
+
+	/**
+	 * @return Изображение клетки с учетом нажатия и взрыва.
+	 */
+	private Image getTile(int x, int y) {
+		if (x == explodedX && y == explodedY)
+			return tiles.getExplodedMine();
+		Cell cell = game.getCell(x, y);
+		if (x == pressedX && y == pressedY && (cell == null || !cell.isOpened() && !cell.isFlagSet()))
+			return tiles.getPressed();
+		return tiles.getTile(cell);
+	}
+
+	/**
+	 * Устанавливает нажатую клетку и перерисовывает старую и новую нажатые клетки.
+	 */
+	private void setPressed(int x, int y) {
+		if (pressedX == x && pressedY == y)
+			return;
+		if (pressedX != -1)
+			repaintCells(pressedX, pressedY, pressedX, pressedY);
+		pressedX = x;
+		pressedY = y;
+		if (pressedX != -1)
+			repaintCells(pressedX, pressedY, pressedX, pressedY);
+	}
+
+	/**
+	 * Слушатель нажатий на клетки поля.
+	 */
+	private final class InteractListener extends MouseAdapter {
+
+		// Клетка, над которой была нажата кнопка мыши
+		private int downX = -1, downY = -1;
+
+		@Override
+		public void mousePressed(MouseEvent e) {
+			downX = cellX(e);
+			downY = cellY(e);
+			if (e.getButton() == MouseEvent.BUTTON1 && downX != -1 && downY != -1)
+				setPressed(downX, downY);
+		}
+
+		@Override
+		public void mouseDragged(MouseEvent e) {
+			if (pressedX == -1)
+				return;
+			if (cellX(e) != downX || cellY(e) != downY)
+				setPressed(-1, -1);
+			else
+				setPressed(downX, downY);
+		}
+
+		@Override
+		public void mouseReleased(MouseEvent e) {
+			setPressed(-1, -1);
+			int x = cellX(e);
+			int y = cellY(e);
+			if (x == -1 || y == -1 || x != downX || y != downY)
+				return;
+
+			Cell cell = game.getCell(x, y);
+			if (cell != null && cell.isOpened())
+				return;
+
+			if (e.getButton() == MouseEvent.BUTTON1 && (cell == null || !cell.isFlagSet()))
+				openCell(x, y);
+			else if (e.getButton() == MouseEvent.BUTTON3)
+				flagCell(x, y);
+		}
+
+		@Override
+		public void mouseWheelMoved(MouseWheelEvent e) {
+			if (e.isControlDown()) {
+				zoom(e.getWheelRotation(), e.getPoint());
+				return;
+			}
+			// Без модификатора колесо прокручивает поле
+			Container parent = getParent();
+			if (parent != null)
+				parent.dispatchEvent(SwingUtilities.convertMouseEvent(GameFieldFrame.this, e, parent));
+		}
+
+		/**
+		 * @return Позиция клетки по X под курсором или -1.
+		 */
+		private int cellX(MouseEvent e) {
+			int x = e.getY() / tiles.getSize();
+			return e.getY() >= 0 && x < game.getWidth() ? x : -1;
+		}
+
+		/**
+		 * @return Позиция клетки по Y под курсором или -1.
+		 */
+		private int cellY(MouseEvent e) {
+			int y = e.getX() / tiles.getSize();
+			return e.getX() >= 0 && y < game.getHeight() ? y : -1;
+		}
 	}
 
 	/**
@@ -39,6 +39,18 @@ public class GameStatsDisplay extends Label implements Runnable {
 		updateDisplay();
 	}
 
+	/**
+	 * Устанавливает состояние продолженной игры.
+	 *
+	 * @param newMines Кол-во мин.
+	 * @param newFlags Кол-во выставленных флагов.
+	 */
+	public void resumeGame(int newMines, int newFlags) {
+		resetGame(newMines);
+		flags = newFlags;
+		updateDisplay();
+	}
+
 	/**
 	 * Устанавливает ник игрока.
 	 *
@@ -1,47 +1,74 @@
 package org.polushin.minesweeper.gui;
 
+import org.polushin.minesweeper.core.Autosave;
 import org.polushin.minesweeper.core.GameHandler;
+import org.polushin.minesweeper.core.replay.Replay;
+import org.polushin.minesweeper.core.replay.ReplayWriter;
 
 import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.File;
+import java.io.IOException;
 
 public class MainFrame extends JFrame {
 
+	// Наибольший размер видимой части поля, остальное доступно прокруткой
+	private static final int MAX_VIEW_WIDTH = 1000;
+	private static final int MAX_VIEW_HEIGHT = 700;
+	// Каталог записей игр, включаемых в настройках
+	private static final File REPLAYS_DIRECTORY = new File("replays");
+
+	private final GameHandler game;
+	private final Autosave autosave;
 	private final GameFieldFrame gameField;
+	private final JScrollPane gameScroll;
 	private final GameStatsDisplay gameStats;
 	private final SettingsPanel settingsPanel = new SettingsPanel(this);
 	private final RecordsPanel recordsPanel;
 
-	public MainFrame(File scores) {
+	/**
+	 * @param scores Базовое имя файлов рекордов.
+	 * @param save Файл сохранения начатой игры, которая продолжается при следующем запуске.
+	 */
+	public MainFrame(File scores, File save) {
 		GridBagLayout layout = new GridBagLayout();
 		GridBagConstraints cn = new GridBagConstraints();
 		setLayout(layout);
 
 		gameStats = new GameStatsDisplay();
-		GameHandler game = new GameHandler(gameStats.getTimer(), scores, SettingsPanel.DEFAULT_NICK);
+		game = new GameHandler(gameStats.getTimer(), scores, SettingsPanel.DEFAULT_NICK);
 		gameField = new GameFieldFrame(game, gameStats);
 		recordsPanel = new RecordsPanel(this, game);
+		autosave = new Autosave(game, save, Autosave.DEFAULT_INTERVAL_SECONDS);
+		if (autosave.resume())
+			gameField.gameResumed();
+
+		// Размещение игрового поля
+		gameScroll = new JScrollPane(gameField);
+		gameScroll.setBorder(null);
+		// Надпись окончания игры рисуется по центру видимой области, поэтому копирование при прокрутке недопустимо
+		gameScroll.getViewport().setScrollMode(JViewport.SIMPLE_SCROLL_MODE);
+		gameScroll.getVerticalScrollBar().setUnitIncrement(CellTiles.SIDE_SIZE);
+		gameScroll.getHorizontalScrollBar().setUnitIncrement(CellTiles.SIDE_SIZE);
 
 		resizeWindow();
 
-		// Размещение игрового поля
-		JPanel gamePanel = new JPanel();
-		gamePanel.setLayout(null);
-		gamePanel.add(gameField);
 		cn.gridx = 0;
 		cn.gridy = 0;
 		cn.gridwidth = game.getWidth();
 		cn.gridheight = game.getHeight();
-		cn.weightx = gameField.getWidth() / (double) getWidth();
+		cn.weightx = gameScroll.getPreferredSize().width / (double) getWidth();
 		cn.weighty = 1;
 		cn.anchor = GridBagConstraints.CENTER;
 		cn.fill = GridBagConstraints.BOTH;
 		cn.insets = new Insets(5, 5, 0, 0);
-		layout.setConstraints(gamePanel, cn);
-		add(gamePanel);
+		layout.setConstraints(gameScroll, cn);
+		add(gameScroll);
 
 		// Размещение кнопки перезапуска игры
 		JButton buttonRestart = new JButton("Перезапустить");
@@ -77,19 +104,36 @@ public class MainFrame extends JFrame {
 		layout.setConstraints(buttonRecords, cn);
 		add(buttonRecords);
 
-		// Размещение статистики текущей игры
+		// Размещение кнопки воспроизведения записи
+		JButton buttonReplay = new JButton("Запись игры");
+		buttonReplay.addMouseListener(new PressDelegate(this::pressReplay));
 		cn.gridy = 4;
+		layout.setConstraints(buttonReplay, cn);
+		add(buttonReplay);
+
+		// Размещение статистики текущей игры
+		cn.gridy = 5;
 		layout.setConstraints(gameStats, cn);
 		add(gameStats);
 
 		setResizable(true);
 		setDefaultCloseOperation(EXIT_ON_CLOSE);
+		addWindowListener(new WindowAdapter() {
+			@Override
+			public void windowClosing(WindowEvent e) {
+				autosave.close();
+			}
+		});
 		setVisible(true);
 	}
 
 	void pressRestart() {
+		if (settingsPanel.isRecordGames() && (REPLAYS_DIRECTORY.isDirectory() || REPLAYS_DIRECTORY.mkdirs()))
+			game.setReplayDirectory(REPLAYS_DIRECTORY);
+		else
+			game.setReplayDirectory(null);
 		gameField.restartGame(settingsPanel.getMinesCount(), settingsPanel.getUserWidth(),
-		                      settingsPanel.getUserHeight());
+		                      settingsPanel.getUserHeight(), settingsPanel.getBoardMode());
 		gameField.setNick(settingsPanel.getNick());
 		resizeWindow();
 	}
@@ -106,11 +150,37 @@ public class MainFrame extends JFrame {
 		recordsPanel.setVisible(true);
 	}
 
+	private void pressReplay() {
+		JFileChooser chooser = new JFileChooser(REPLAYS_DIRECTORY.isDirectory() ? REPLAYS_DIRECTORY : new File("."));
+		chooser.setFileFilter(new FileNameExtensionFilter("Записи игр", ReplayWriter.FILE_EXTENSION.substring(1)));
+		if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION)
+			return;
+		try {
+			new ReplayPlayer(this, Replay.read(chooser.getSelectedFile().toPath())).setVisible(true);
+		} catch (IOException | IllegalArgumentException e) {
+			JOptionPane.showMessageDialog(this, "Не удалось открыть запись: " + e.getMessage(), "Ошибка",
+			                              JOptionPane.WARNING_MESSAGE);
+		}
+	}
+
 	/**
 	 * Изменяет размеры окна при создании нового поля.
 	 */
 	private void resizeWindow() {
-		setSize(gameField.getWidth() + gameStats.getMaxWidth() + 35, gameField.getHeight() + 45);
+		Dimension field = gameField.getPreferredSize();
+		int viewWidth = field.width;
+		int viewHeight = field.height;
+		if (viewWidth > MAX_VIEW_WIDTH || viewHeight > MAX_VIEW_HEIGHT) {
+			viewWidth = Math.min(viewWidth, MAX_VIEW_WIDTH) + gameScroll.getVerticalScrollBar().getPreferredSize().width;
+			viewHeight = Math.min(viewHeight, MAX_VIEW_HEIGHT) +
+			             gameScroll.getHorizontalScrollBar().getPreferredSize().height;
+		}
+		gameScroll.setPreferredSize(new Dimension(viewWidth, viewHeight));
+		gameScroll.setMinimumSize(gameScroll.getPreferredSize());
+		revalidate();
+
+		setMinimumSize(null);
+		setSize(viewWidth + gameStats.getMaxWidth() + 35, viewHeight + 45);
 		setMinimumSize(new Dimension(getWidth(), getHeight()));
 	}
 
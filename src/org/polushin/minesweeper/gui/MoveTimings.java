@@ -0,0 +1,46 @@
+package org.polushin.minesweeper.gui;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Замер времени обработки ходов в потоке интерфейса.
+ * Включается свойством {@code -Dminesweeper.timing=true}, итоги выводятся в stderr по окончании каждой игры.
+ */
+final class MoveTimings {
+
+	static final boolean ENABLED = Boolean.getBoolean("minesweeper.timing");
+
+	private int moves;
+	private long total;
+	private long max;
+	private long last;
+
+	/**
+	 * @param start Время начала обработки хода по {@link System#nanoTime()}.
+	 */
+	void record(long start) {
+		long time = System.nanoTime() - start;
+		last = time;
+		moves++;
+		total += time;
+		max = Math.max(max, time);
+	}
+
+	/**
+	 * Выводит итоги замеров и сбрасывает их.
+	 * Последний ход - завершивший игру, в том числе запись рекорда.
+	 *
+	 * @param result Результат игры.
+	 */
+	void report(String result) {
+		if (moves == 0)
+			return;
+		System.err.println(String.format("%s: %d moves, avg %d us, max %d us, last %d us", result, moves,
+		                                 TimeUnit.NANOSECONDS.toMicros(total / moves),
+		                                 TimeUnit.NANOSECONDS.toMicros(max),
+		                                 TimeUnit.NANOSECONDS.toMicros(last)));
+		moves = 0;
+		total = 0;
+		max = 0;
+	}
+}
@@ -1,13 +1,17 @@
 package org.polushin.minesweeper.gui;
 
+import org.polushin.minesweeper.core.BoardConfig;
 import org.polushin.minesweeper.core.GameHandler;
 import org.polushin.minesweeper.core.PlayerScore;
+import org.polushin.minesweeper.core.ScoreOrder;
 
 import javax.swing.*;
+import java.awt.*;
 
 public class RecordsPanel extends JDialog {
 
 	private final DefaultListModel<String> listModel = new DefaultListModel<>();
+	private final JComboBox<String> order = new JComboBox<>(new String[] {"По времени", "По 3BV в секунду"});
 	private final GameHandler gameHandler;
 
 	public RecordsPanel(JFrame frame, GameHandler gameHandler) {
@@ -15,9 +19,11 @@ public class RecordsPanel extends JDialog {
 		this.gameHandler = gameHandler;
 		JList<String> list = new JList<>(listModel);
 		JScrollPane scroll = new JScrollPane(list);
+		order.addActionListener(e -> updateList());
+		add(order, BorderLayout.NORTH);
 		add(scroll);
 		updateList();
-		setSize(300, 200);
+		setSize(400, 230);
 	}
 
 	@Override
@@ -28,9 +34,15 @@ public class RecordsPanel extends JDialog {
 
 	private void updateList() {
 		listModel.clear();
+		BoardConfig config = gameHandler.getBoardConfig();
+		listModel.addElement(String.format("Поле %dx%d, мин: %d", config.width, config.height, config.mines));
+		ScoreOrder scoreOrder = order.getSelectedIndex() == 0 ? ScoreOrder.TIME : ScoreOrder.THREE_BV_RATE;
 		int pos = 0;
-		for (PlayerScore score : gameHandler.getScoreTable())
+		for (PlayerScore score : gameHandler.getScoreTable(scoreOrder))
 			listModel.addElement(++pos + ". " + score.toString());
+		int rank = gameHandler.getPlayerRank(scoreOrder);
+		if (rank != 0)
+			listModel.addElement("Ваше место: " + rank);
 	}
 
 }
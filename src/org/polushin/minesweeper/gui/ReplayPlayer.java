@@ -0,0 +1,136 @@
+package org.polushin.minesweeper.gui;
+
+import org.polushin.minesweeper.core.BoardPool;
+import org.polushin.minesweeper.core.GameHandler;
+import org.polushin.minesweeper.core.GameTimer;
+import org.polushin.minesweeper.core.ScoreStorage;
+import org.polushin.minesweeper.core.replay.Replay;
+import org.polushin.minesweeper.core.replay.ReplayHeader;
+import org.polushin.minesweeper.core.replay.ReplayMove;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.List;
+
+/**
+ * Окно воспроизведения записи игры.
+ * Ходы применяются к восстановленному по зерну полю с задержками из записи, деленными на выбранную скорость.
+ * Результаты воспроизведения не попадают в таблицу рекордов.
+ */
+public class ReplayPlayer extends JDialog {
+
+	private static final String[] SPEED_NAMES = {"x0.25", "x0.5", "x1", "x2", "x4", "x8", "x16", "Без задержек"};
+	private static final double[] SPEEDS = {0.25, 0.5, 1, 2, 4, 8, 16, Double.POSITIVE_INFINITY};
+	private static final int DEFAULT_SPEED = 2;
+
+	private final ReplayHeader header;
+	private final List<ReplayMove> moves;
+	private final BoardPool boards = new BoardPool(0, 1);
+	private final GameFieldFrame gameField;
+	private final GameStatsDisplay stats = new GameStatsDisplay();
+	private final JComboBox<String> speed = new JComboBox<>(SPEED_NAMES);
+	private final JButton play = new JButton("Пауза");
+	private final JLabel progress = new JLabel();
+	// Срабатывает один раз перед каждым ходом
+	private final Timer timer;
+
+	private int next;
+
+	/**
+	 * @param frame Главное окно.
+	 * @param replay Воспроизводимая запись.
+	 *
+	 * @throws IllegalArgumentException Если параметры поля в записи недопустимы.
+	 */
+	public ReplayPlayer(JFrame frame, Replay replay) {
+		super(frame, "Запись игры: " + replay.getHeader().nick, false);
+		header = replay.getHeader();
+		moves = replay.getMoves();
+
+		GameHandler game = new GameHandler(GameTimer.silent(), new ScoreStorage(), boards, header.nick,
+		                                   header.mines, header.width, header.height);
+		gameField = new GameFieldFrame(game, stats, false);
+		timer = new Timer(0, e -> playMove());
+		timer.setRepeats(false);
+
+		speed.setSelectedIndex(DEFAULT_SPEED);
+		play.addActionListener(e -> togglePause());
+		JButton rewind = new JButton("Сначала");
+		rewind.addActionListener(e -> rewind());
+
+		JPanel controls = new JPanel();
+		controls.add(play);
+		controls.add(rewind);
+		controls.add(speed);
+		controls.add(progress);
+
+		JScrollPane scroll = new JScrollPane(gameField);
+		scroll.setPreferredSize(new Dimension(Math.min(gameField.getPreferredSize().width + 20, 1000),
+		                                      Math.min(gameField.getPreferredSize().height + 20, 700)));
+		add(stats, BorderLayout.NORTH);
+		add(scroll);
+		add(controls, BorderLayout.SOUTH);
+		pack();
+		setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+
+		rewind();
+	}
+
+	@Override
+	public void dispose() {
+		timer.stop();
+		boards.close();
+		super.dispose();
+	}
+
+	/**
+	 * Восстанавливает поле до первого хода и начинает воспроизведение.
+	 */
+	private void rewind() {
+		timer.stop();
+		gameField.restartGame(header.mines, header.width, header.height, header.mode, header.seed);
+		stats.setNick(header.nick);
+		next = 0;
+		updateProgress();
+		play.setText("Пауза");
+		schedule();
+	}
+
+	private void togglePause() {
+		if (timer.isRunning()) {
+			timer.stop();
+			play.setText("Продолжить");
+		} else if (next < moves.size()) {
+			play.setText("Пауза");
+			schedule();
+		}
+	}
+
+	private void playMove() {
+		ReplayMove move = moves.get(next++);
+		if (move.flag)
+			gameField.flagCell(move.x, move.y);
+		else
+			gameField.openCell(move.x, move.y);
+		updateProgress();
+		schedule();
+	}
+
+	/**
+	 * Планирует следующий ход с задержкой из записи при текущей скорости.
+	 */
+	private void schedule() {
+		if (next >= moves.size()) {
+			play.setText("Продолжить");
+			return;
+		}
+		long delay = next == 0 ? 0 : moves.get(next).time - moves.get(next - 1).time;
+		timer.setInitialDelay((int) Math.min(Integer.MAX_VALUE, delay / SPEEDS[speed.getSelectedIndex()]));
+		timer.start();
+	}
+
+	private void updateProgress() {
+		long time = next == 0 ? 0 : moves.get(next - 1).time;
+		progress.setText(String.format("Ход %d из %d, %.1f сек.", next, moves.size(), time / 1e3));
+	}
+}
@@ -1,6 +1,9 @@
 package org.polushin.minesweeper.gui;
 
+import org.polushin.minesweeper.core.BoardMode;
 import org.polushin.minesweeper.core.GameHandler;
+import org.polushin.minesweeper.core.PlayerScore;
+import org.polushin.minesweeper.core.solver.NoGuessMinesGenerator;
 
 import javax.swing.*;
 import javax.swing.text.NumberFormatter;
@@ -9,11 +12,16 @@ import java.text.NumberFormat;
 public class SettingsPanel extends JDialog {
 
 	public static final String DEFAULT_NICK = "noname";
+	public static final int MIN_SIZE = 10;
+	public static final int MAX_SIZE = 5000;
+	public static final int MAX_MINES = MAX_SIZE * MAX_SIZE - 1;
 
 	private final JTextField nick;
 	private final JFormattedTextField minesCount;
 	private final JFormattedTextField height;
 	private final JFormattedTextField width;
+	private final JCheckBox noGuess;
+	private final JCheckBox recordGames;
 
 	private final MainFrame frame;
 
@@ -28,7 +36,7 @@ public class SettingsPanel extends JDialog {
 		NumberFormatter minesFormatter = new NumberFormatter(format);
 		minesFormatter.setValueClass(Integer.class);
 
-		minesFormatter.setMaximum(2500);
+		minesFormatter.setMaximum(MAX_MINES);
 		minesFormatter.setMinimum(0);
 		minesCount = new JFormattedTextField(minesFormatter);
 		minesCount.setValue(GameHandler.DEFAULT_MINES_COUNT);
@@ -36,13 +44,16 @@ public class SettingsPanel extends JDialog {
 		NumberFormatter sizesFormatter = new NumberFormatter(format);
 		sizesFormatter.setValueClass(Integer.class);
 
-		sizesFormatter.setMaximum(50);
-		sizesFormatter.setMinimum(10);
+		sizesFormatter.setMaximum(MAX_SIZE);
+		sizesFormatter.setMinimum(MIN_SIZE);
 		height = new JFormattedTextField(sizesFormatter);
 		height.setValue(GameHandler.DEFAULT_HEIGHT);
 		width = new JFormattedTextField(sizesFormatter);
 		width.setValue(GameHandler.DEFAULT_WIDTH);
 
+		noGuess = new JCheckBox("Без угадывания");
+		recordGames = new JCheckBox("Записывать игры");
+
 		JButton closeButton = new JButton("ОК");
 		closeButton.addActionListener(e -> closeSettings());
 
@@ -50,16 +61,19 @@ public class SettingsPanel extends JDialog {
 
 		add(new JLabel("Ник:"));
 		add(nick);
-		add(new JLabel("Кол-во мин (от 1 до 2500):"));
+		add(new JLabel("Кол-во мин (от 1 до " + MAX_MINES + "):"));
 		add(minesCount);
-		add(new JLabel("Ширина (от 10 до 50):"));
+		add(new JLabel("Ширина (от " + MIN_SIZE + " до " + MAX_SIZE + "):"));
 		add(width);
-		add(new JLabel("Высота (от 10 до 50):"));
+		add(new JLabel("Высота (от " + MIN_SIZE + " до " + MAX_SIZE + "):"));
 		add(height);
+		add(noGuess);
+		add(recordGames);
 		add(new JLabel("Изменения будут применены после перезапуска."));
+		add(new JLabel("Ctrl + колесо мыши изменяет масштаб поля."));
 		add(closeButton);
 
-		setSize(330, 250);
+		setSize(330, 320);
 		setResizable(false);
 	}
 
@@ -84,6 +98,20 @@ public class SettingsPanel extends JDialog {
 		return minesCount.getValue() == null ? -1 : (int) minesCount.getValue();
 	}
 
+	/**
+	 * @return Способ генерации поля.
+	 */
+	public BoardMode getBoardMode() {
+		return noGuess.isSelected() ? BoardMode.NO_GUESS : BoardMode.RANDOM;
+	}
+
+	/**
+	 * @return Записывать ли игры для последующего воспроизведения.
+	 */
+	public boolean isRecordGames() {
+		return recordGames.isSelected();
+	}
+
 	/**
 	 * @return Ник игрока.
 	 */
@@ -95,7 +123,8 @@ public class SettingsPanel extends JDialog {
 		int mines = getMinesCount();
 		int width = getUserWidth();
 		int height = getUserHeight();
-		if (mines == -1 || width == -1 || height == -1 || getNick().isEmpty()) {
+		if (mines == -1 || width == -1 || height == -1 || getNick().isEmpty()
+		    || getNick().length() > PlayerScore.MAX_NICK_LENGTH) {
 			JOptionPane.showMessageDialog(this, "Проверьте правильность введенных данных!", "Ошибка",
 			                              JOptionPane.WARNING_MESSAGE);
 			return;
@@ -105,6 +134,12 @@ public class SettingsPanel extends JDialog {
 			                              JOptionPane.WARNING_MESSAGE);
 			return;
 		}
+		if (!getBoardMode().supports(mines, width, height)) {
+			JOptionPane.showMessageDialog(this, String.format(
+					"Поле без угадывания ограничено %d клетками и %d%% мин!", NoGuessMinesGenerator.MAX_CELLS,
+					(int) (NoGuessMinesGenerator.MAX_DENSITY * 100)), "Ошибка", JOptionPane.WARNING_MESSAGE);
+			return;
+		}
 
 		setVisible(false);
 
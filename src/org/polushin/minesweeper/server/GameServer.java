@@ -0,0 +1,102 @@
+package org.polushin.minesweeper.server;
+
+import org.polushin.minesweeper.core.ScoreStorage;
+import org.polushin.minesweeper.core.VirtualThreads;
+import org.polushin.minesweeper.cui.TextUI;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Сервер независимых игровых сессий по TCP.
+ * Каждое соединение - отдельная игра с командами текстового интерфейса, обслуживаемая в своем потоке.
+ * Общей между сессиями является только таблица рекордов. Размеры поля в сессиях ограничены,
+ * чтобы один игрок не мог занять память и процессор сервера. Повторы игроков пишутся только
+ * в заданный сервером каталог.
+ */
+public class GameServer {
+
+	public static final int DEFAULT_PORT = 4000;
+	private static final int BACKLOG = 1024;
+
+	private final int port;
+	private final ScoreStorage scores;
+	// Каталог повторов или null, если запись повторов запрещена
+	private final File replays;
+	// Сессии ждут ввода игроков, поэтому обслуживаются виртуальными потоками, где они доступны
+	private final ExecutorService sessions = VirtualThreads.newPerTaskExecutor("game-session");
+	private final AtomicInteger activeSessions = new AtomicInteger();
+
+	/**
+	 * Сервер, на котором запись повторов запрещена.
+	 *
+	 * @param port Порт для входящих соединений.
+	 * @param scores Общая таблица рекордов.
+	 *
+	 * @throws IllegalArgumentException Если таблица рекордов равна {@code null}.
+	 */
+	public GameServer(int port, ScoreStorage scores) {
+		this(port, scores, null);
+	}
+
+	/**
+	 * @param port Порт для входящих соединений.
+	 * @param scores Общая таблица рекордов.
+	 * @param replays Каталог повторов игроков или {@code null}, если запись повторов запрещена.
+	 *
+	 * @throws IllegalArgumentException Если таблица рекордов равна {@code null}
+	 * или каталог повторов не удалось создать.
+	 */
+	public GameServer(int port, ScoreStorage scores, File replays) {
+		if (scores == null)
+			throw new IllegalArgumentException("Scores cannot be null!");
+		if (replays != null && !replays.isDirectory() && !replays.mkdirs())
+			throw new IllegalArgumentException("Cannot create replays directory " + replays + "!");
+		this.port = port;
+		this.scores = scores;
+		this.replays = replays;
+	}
+
+	/**
+	 * Принимает соединения, пока сервер не будет остановлен.
+	 */
+	public void run() throws IOException {
+		try (ServerSocket server = new ServerSocket(port, BACKLOG)) {
+			System.out.println("Server started on port " + server.getLocalPort());
+			while (!server.isClosed()) {
+				Socket socket = server.accept();
+				sessions.execute(() -> serve(socket));
+			}
+		} finally {
+			sessions.shutdownNow();
+		}
+	}
+
+	/**
+	 * @return Кол-во подключенных сейчас игроков.
+	 */
+	public int getActiveSessions() {
+		return activeSessions.get();
+	}
+
+	/**
+	 * Ведет игровую сессию до отключения игрока или команды выхода.
+	 */
+	private void serve(Socket socket) {
+		activeSessions.incrementAndGet();
+		try (Socket connection = socket) {
+			connection.setTcpNoDelay(true);
+			Reader in = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8);
+			Writer out = new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8);
+			TextUI.remoteSession(scores, in, out, replays).runGame();
+		} catch (IOException e) {
+			// Соединение разорвано игроком
+		} finally {
+			activeSessions.decrementAndGet();
+		}
+	}
+}
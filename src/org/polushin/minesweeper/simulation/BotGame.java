@@ -0,0 +1,90 @@
+package org.polushin.minesweeper.simulation;
+
+import org.polushin.minesweeper.core.GameHandler;
+import org.polushin.minesweeper.core.field.InteractResult;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Игра бота: передает ходы обработчику игры и замеряет время каждого хода.
+ */
+public final class BotGame {
+
+	private final GameHandler handler;
+	private final LatencyHistogram latencies;
+	private final ForkJoinPool pool;
+	// Ходов достаточно, чтобы открыть или пометить каждую клетку, с запасом на снятие флагов
+	private final int maxMoves;
+
+	private int moves;
+
+	BotGame(GameHandler handler, LatencyHistogram latencies, ForkJoinPool pool) {
+		this.handler = handler;
+		this.latencies = latencies;
+		this.pool = pool;
+		maxMoves = 2 * handler.getWidth() * handler.getHeight();
+	}
+
+	/**
+	 * @return Обработчик игры для чтения состояния поля.
+	 */
+	public GameHandler getHandler() {
+		return handler;
+	}
+
+	/**
+	 * @return Пул симуляции для параллельных вычислений бота.
+	 */
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * @return Окончена ли игра.
+	 */
+	public boolean isFinished() {
+		return handler.isGameOver() || handler.isGameWon();
+	}
+
+	/**
+	 * @return Кол-во сделанных ходов.
+	 */
+	public int getMoves() {
+		return moves;
+	}
+
+	/**
+	 * Открывает клетку.
+	 *
+	 * @return Результат взаимодействия с полем.
+	 *
+	 * @throws IllegalStateException Если игра окончена или бот превысил ограничение ходов.
+	 */
+	public InteractResult open(int x, int y) {
+		return move(x, y, false);
+	}
+
+	/**
+	 * Устанавливает или удаляет флаг на клетке.
+	 *
+	 * @return Результат взаимодействия с полем.
+	 *
+	 * @throws IllegalStateException Если игра окончена или бот превысил ограничение ходов.
+	 */
+	public InteractResult mark(int x, int y) {
+		return move(x, y, true);
+	}
+
+	/**
+	 * Делает ход вместе с проверкой победы, при которой записывается результат.
+	 */
+	private InteractResult move(int x, int y, boolean flag) {
+		if (++moves > maxMoves)
+			throw new IllegalStateException("Bot exceeded moves limit!");
+		long start = System.nanoTime();
+		InteractResult result = flag ? handler.markCell(x, y) : handler.openCell(x, y);
+		handler.isGameWon();
+		latencies.record(System.nanoTime() - start);
+		return result;
+	}
+}
@@ -0,0 +1,16 @@
+package org.polushin.minesweeper.simulation;
+
+/**
+ * Стратегия бота, играющего без участия человека.
+ * Один экземпляр стратегии используется всеми потоками симуляции, поэтому состояние игры
+ * должно храниться только внутри {@link #play(BotGame)}.
+ */
+public interface BotStrategy {
+
+	/**
+	 * Играет одну игру до победы или поражения.
+	 *
+	 * @param game Игра, ходы в которой делаются через {@link BotGame#open(int, int)} и {@link BotGame#mark(int, int)}.
+	 */
+	void play(BotGame game);
+}
@@ -0,0 +1,104 @@
+package org.polushin.minesweeper.simulation;
+
+import java.io.PrintStream;
+
+/**
+ * Гистограмма задержек в наносекундах с логарифмическими корзинами.
+ * Каждая степень двойки делится на {@link #SUB_BUCKETS} равных корзин, поэтому погрешность процентилей
+ * не больше 1/8 значения, а запись стоит одного сдвига и инкремента.
+ * Каждый поток пишет в свою гистограмму, в конце они складываются.
+ */
+final class LatencyHistogram {
+
+	private static final int SUB_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+	private final long[] counts = new long[(Long.SIZE - SUB_BITS + 1) * SUB_BUCKETS];
+	private long count;
+	private long sum;
+	private long max;
+
+	void record(long nanos) {
+		nanos = Math.max(nanos, 0);
+		counts[bucket(nanos)]++;
+		count++;
+		sum += nanos;
+		max = Math.max(max, nanos);
+	}
+
+	void add(LatencyHistogram other) {
+		for (int i = 0; i < counts.length; i++)
+			counts[i] += other.counts[i];
+		count += other.count;
+		sum += other.sum;
+		max = Math.max(max, other.max);
+	}
+
+	long getCount() {
+		return count;
+	}
+
+	long getMax() {
+		return max;
+	}
+
+	double getMean() {
+		return count == 0 ? 0 : (double) sum / count;
+	}
+
+	/**
+	 * @param p Доля от 0 до 1.
+	 *
+	 * @return Верхняя граница корзины, в которую попадает данный процентиль.
+	 */
+	long getPercentile(double p) {
+		long rank = Math.max(1, (long) Math.ceil(p * count));
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank)
+				return Math.min(lowerBound(i + 1) - 1, max);
+		}
+		return max;
+	}
+
+	/**
+	 * Печатает кол-во ходов по степеням двойки микросекунд.
+	 */
+	void print(PrintStream out) {
+		long seen = 0;
+		for (int first = 0; first < counts.length; first += SUB_BUCKETS) {
+			long inRange = 0;
+			for (int i = first; i < first + SUB_BUCKETS; i++)
+				inRange += counts[i];
+			if (inRange == 0)
+				continue;
+			seen += inRange;
+			out.printf("  %10.1f - %10.1f us: %10d (%5.1f%%)%n", lowerBound(first) / 1e3,
+			           lowerBound(first + SUB_BUCKETS) / 1e3, inRange, 100.0 * seen / count);
+		}
+	}
+
+	/**
+	 * @return Корзина значения: малые значения попадают в корзины точно, остальные - по старшим битам.
+	 */
+	private static int bucket(long value) {
+		if (value < SUB_BUCKETS)
+			return (int) value;
+		int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+		int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+	}
+
+	/**
+	 * @return Наименьшее значение корзины.
+	 */
+	private static long lowerBound(int bucket) {
+		if (bucket < SUB_BUCKETS)
+			return bucket;
+		int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+		if (exponent >= Long.SIZE - 1)
+			return Long.MAX_VALUE;
+		return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BITS);
+	}
+}
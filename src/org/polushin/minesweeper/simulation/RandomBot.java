@@ -0,0 +1,26 @@
+package org.polushin.minesweeper.simulation;
+
+import org.polushin.minesweeper.core.GameHandler;
+import org.polushin.minesweeper.core.field.Cell;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Бот, открывающий случайные закрытые клетки до взрыва.
+ * Флаги не ставит, поэтому не выигрывает, но нагружает поле ходами разного размера.
+ */
+public class RandomBot implements BotStrategy {
+
+	@Override
+	public void play(BotGame game) {
+		GameHandler handler = game.getHandler();
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		while (!game.isFinished()) {
+			int x = random.nextInt(handler.getWidth());
+			int y = random.nextInt(handler.getHeight());
+			Cell cell = handler.getCell(x, y);
+			if (cell == null || !cell.isOpened())
+				game.open(x, y);
+		}
+	}
+}
@@ -0,0 +1,170 @@
+package org.polushin.minesweeper.simulation;
+
+import org.polushin.minesweeper.core.BoardMode;
+import org.polushin.minesweeper.core.BoardPool;
+import org.polushin.minesweeper.core.GameHandler;
+import org.polushin.minesweeper.core.GameTimer;
+import org.polushin.minesweeper.core.ScoreStorage;
+import org.polushin.minesweeper.core.VirtualThreads;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Симуляция множества игр ботом без интерфейса для замера пропускной способности ядра игры.
+ *
+ * Игры ведутся в виртуальных потоках, а подсчет вероятностей ботами - в пуле из заданного кол-ва потоков.
+ * Каждый поток играет на своем обработчике игры с таймером без отображения, результаты пишутся
+ * в таблицу рекордов в памяти, а поля генерируются на месте без пула. Поля разных игр не имеют общего
+ * состояния, поэтому потоки синхронизируются только при записи побед и выборе следующей игры.
+ * Поле каждой игры определяется зерном симуляции и номером игры, а не потоком, который ее играл.
+ */
+public class Simulation {
+
+	private final BotStrategy bot;
+	private final BoardMode mode;
+	private final int mines, width, height;
+	private final int threads;
+	private final long seed;
+
+	/**
+	 * @param bot Стратегия бота.
+	 * @param mode Способ генерации полей.
+	 * @param mines Кол-во мин.
+	 * @param width Ширина поля.
+	 * @param height Высота поля.
+	 * @param threads Кол-во потоков.
+	 * @param seed Зерно генерации полей.
+	 *
+	 * @throws IllegalArgumentException Если бот или способ генерации равны {@code null}, либо кол-во потоков
+	 * не положительно.
+	 */
+	public Simulation(BotStrategy bot, BoardMode mode, int mines, int width, int height, int threads, long seed) {
+		if (bot == null)
+			throw new IllegalArgumentException("Bot cannot be null!");
+		if (mode == null)
+			throw new IllegalArgumentException("Board mode cannot be null!");
+		if (threads <= 0)
+			throw new IllegalArgumentException("Threads count must be positive!");
+		this.bot = bot;
+		this.mode = mode;
+		this.mines = mines;
+		this.width = width;
+		this.height = height;
+		this.threads = threads;
+		this.seed = seed;
+	}
+
+	/**
+	 * Играет заданное кол-во игр и дожидается их окончания.
+	 * Если вызывающий поток прерван, начатые игры доигрываются, а отчет помечается неполным.
+	 *
+	 * @param games Кол-во игр.
+	 *
+	 * @return Отчет о симуляции.
+	 *
+	 * @throws IllegalArgumentException Если кол-во игр отрицательно или поле с такими параметрами невозможно.
+	 * @throws IllegalStateException Если бот завершился с ошибкой.
+	 */
+	public SimulationReport run(int games) {
+		if (games < 0)
+			throw new IllegalArgumentException("Games count cannot be negative!");
+		// Пул без места под расстановки только создает поля и не запускает потоки генерации
+		BoardPool boards = new BoardPool(0, 1);
+		ScoreStorage scores = new ScoreStorage();
+		AtomicInteger next = new AtomicInteger();
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		List<Worker> workers = new ArrayList<>();
+		for (int i = 0; i < threads; i++)
+			workers.add(new Worker(new GameHandler(GameTimer.silent(), scores, boards, "bot-" + i, mines, width,
+			                                       height), games, next, pool));
+
+		ExecutorService executor = VirtualThreads.newPerTaskExecutor("simulation");
+		boolean interrupted = false;
+		long start = System.nanoTime();
+		try {
+			List<Future<Worker>> results = new ArrayList<>();
+			for (Worker worker : workers)
+				results.add(executor.submit(worker));
+			for (Future<Worker> result : results)
+				result.get();
+		} catch (InterruptedException e) {
+			interrupted = true;
+			executor.shutdownNow();
+			awaitStopped(executor);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Simulation failed!", e.getCause());
+		} finally {
+			executor.shutdownNow();
+			pool.shutdownNow();
+			boards.close();
+		}
+		long elapsed = System.nanoTime() - start;
+		if (interrupted)
+			Thread.currentThread().interrupt();
+
+		LatencyHistogram latencies = new LatencyHistogram();
+		int played = 0, wins = 0;
+		for (Worker worker : workers) {
+			latencies.add(worker.latencies);
+			played += worker.played;
+			wins += worker.wins;
+		}
+		return new SimulationReport(threads, played, wins, elapsed, latencies, played < games);
+	}
+
+	/**
+	 * Дожидается, пока прерванные потоки доиграют начатые игры, чтобы отчет не читал их счетчики во время игры.
+	 */
+	private static void awaitStopped(ExecutorService executor) {
+		while (true)
+			try {
+				if (executor.awaitTermination(1, TimeUnit.MINUTES))
+					return;
+			} catch (InterruptedException e) {
+				// Прерывание уже учтено, отчет все равно будет неполным
+			}
+	}
+
+	/**
+	 * Поток симуляции: берет номера игр, пока они не закончатся.
+	 */
+	private final class Worker implements Callable<Worker> {
+
+		final GameHandler handler;
+		final int games;
+		final AtomicInteger next;
+		final LatencyHistogram latencies = new LatencyHistogram();
+		final ForkJoinPool pool;
+		int played, wins;
+
+		Worker(GameHandler handler, int games, AtomicInteger next, ForkJoinPool pool) {
+			this.handler = handler;
+			this.games = games;
+			this.next = next;
+			this.pool = pool;
+			handler.restartGame(mines, width, height, mode);
+		}
+
+		@Override
+		public Worker call() {
+			int game;
+			while ((game = next.getAndIncrement()) < games && !Thread.currentThread().isInterrupted()) {
+				handler.restartGame(mines, width, height, seed + game * 0x9e3779b97f4a7c15L);
+				bot.play(new BotGame(handler, latencies, pool));
+				played++;
+				if (handler.isGameWon())
+					wins++;
+			}
+			handler.close();
+			return this;
+		}
+	}
+}
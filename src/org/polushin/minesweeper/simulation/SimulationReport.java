@@ -0,0 +1,86 @@
+package org.polushin.minesweeper.simulation;
+
+import java.io.PrintStream;
+
+/**
+ * Итоги симуляции: пропускная способность, доля побед и задержки ходов.
+ */
+public final class SimulationReport {
+
+	private final int threads;
+	private final int games;
+	private final int wins;
+	private final long elapsedNanos;
+	private final LatencyHistogram latencies;
+	// Была ли симуляция прервана до того, как сыграны все игры
+	private final boolean partial;
+
+	SimulationReport(int threads, int games, int wins, long elapsedNanos, LatencyHistogram latencies,
+	                 boolean partial) {
+		this.threads = threads;
+		this.games = games;
+		this.wins = wins;
+		this.elapsedNanos = elapsedNanos;
+		this.latencies = latencies;
+		this.partial = partial;
+	}
+
+	/**
+	 * @return Неполон ли отчет: симуляция была прервана и сыграны не все игры.
+	 */
+	public boolean isPartial() {
+		return partial;
+	}
+
+	/**
+	 * @return Кол-во сыгранных игр.
+	 */
+	public int getGames() {
+		return games;
+	}
+
+	/**
+	 * @return Кол-во выигранных игр.
+	 */
+	public int getWins() {
+		return wins;
+	}
+
+	/**
+	 * @return Доля выигранных игр.
+	 */
+	public double getWinRate() {
+		return games == 0 ? 0 : (double) wins / games;
+	}
+
+	/**
+	 * @return Кол-во игр в секунду.
+	 */
+	public double getGamesPerSecond() {
+		return games / Math.max(elapsedNanos / 1e9, 1e-9);
+	}
+
+	/**
+	 * @return Кол-во ходов в секунду.
+	 */
+	public double getMovesPerSecond() {
+		return latencies.getCount() / Math.max(elapsedNanos / 1e9, 1e-9);
+	}
+
+	/**
+	 * Печатает отчет вместе с гистограммой задержек ходов.
+	 */
+	public void print(PrintStream out) {
+		if (partial)
+			out.println("Simulation was interrupted, the report is partial.");
+		out.printf("Threads: %d, games: %d, moves: %d, time: %.2f s%n", threads, games, latencies.getCount(),
+		           elapsedNanos / 1e9);
+		out.printf("Throughput: %.0f games/s, %.0f moves/s%n", getGamesPerSecond(), getMovesPerSecond());
+		out.printf("Win rate: %.2f%% (%d of %d)%n", getWinRate() * 100, wins, games);
+		out.printf("Move latency: mean %.3f us, p50 %.3f us, p99 %.3f us, p99.9 %.3f us, max %.3f us%n",
+		           latencies.getMean() / 1e3, latencies.getPercentile(0.50) / 1e3,
+		           latencies.getPercentile(0.99) / 1e3, latencies.getPercentile(0.999) / 1e3,
+		           latencies.getMax() / 1e3);
+		latencies.print(out);
+	}
+}
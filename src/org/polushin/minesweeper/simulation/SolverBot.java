@@ -0,0 +1,46 @@
+package org.polushin.minesweeper.simulation;
+
+import org.polushin.minesweeper.core.GameHandler;
+import org.polushin.minesweeper.core.field.Cell;
+import org.polushin.minesweeper.core.solver.ProbabilityEngine;
+import org.polushin.minesweeper.core.solver.Solver;
+
+/**
+ * Бот на решателе: открывает доказанно безопасные клетки, помечает доказанные мины,
+ * а когда решатель ничего не находит, открывает клетку с наименьшей вероятностью мины.
+ * Первый ход делается в центр поля.
+ */
+public class SolverBot implements BotStrategy {
+
+	@Override
+	public void play(BotGame game) {
+		GameHandler handler = game.getHandler();
+		game.open(handler.getWidth() / 2, handler.getHeight() / 2);
+		if (game.isFinished())
+			return;
+
+		Solver solver = new Solver(handler.getField());
+		ProbabilityEngine probabilities = null;
+		while (!game.isFinished()) {
+			solver.solve();
+			Cell cell = solver.nextSafeCell();
+			if (cell != null) {
+				solver.update(game.open(cell.posX, cell.posY));
+				continue;
+			}
+			cell = solver.nextMineCell();
+			if (cell != null) {
+				game.mark(cell.posX, cell.posY);
+				continue;
+			}
+
+			// Части границы считаются в пуле симуляции, размер которого задан кол-вом потоков
+			if (probabilities == null)
+				probabilities = new ProbabilityEngine(solver, game.getPool());
+			cell = probabilities.compute().getSafestCell();
+			if (cell == null)
+				throw new IllegalStateException("Solver has no moves!");
+			solver.update(game.open(cell.posX, cell.posY));
+		}
+	}
+}
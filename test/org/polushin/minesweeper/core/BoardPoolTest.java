@@ -0,0 +1,38 @@
+package org.polushin.minesweeper.core;
+
+import org.junit.jupiter.api.Test;
+import org.polushin.minesweeper.core.field.MineField;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Выдача готовых расстановок из пула.
+ */
+class BoardPoolTest {
+
+	@Test
+	void wrongFieldRejectedBeforeAllocation() {
+		BoardPool pool = new BoardPool(0, 1);
+		assertThrows(IllegalArgumentException.class, () -> pool.newField(BoardMode.RANDOM, 0, 40000, 40000));
+		assertThrows(IllegalArgumentException.class, () -> pool.newField(BoardMode.RANDOM, 10, 0, 10));
+		assertThrows(IllegalArgumentException.class, () -> pool.newField(BoardMode.RANDOM, 100, 10, 10));
+		pool.close();
+	}
+
+	@Test
+	void skippedLayoutsAreDiscarded() throws InterruptedException {
+		// На поле 3x3 с 8 минами у каждой расстановки ровно одна безопасная клетка
+		BoardPool pool = new BoardPool(1 << 10, 1);
+		pool.newField(BoardMode.RANDOM, 8, 3, 3);
+		while (pool.getStoredCells() < 4 * 9)
+			Thread.sleep(10);
+
+		MineField field = pool.newField(BoardMode.RANDOM, 8, 3, 3);
+		field.getCell(0, 0).open();
+		assertEquals(1, pool.getHits() + pool.getMisses());
+		assertEquals(4, pool.getHits() + pool.getDiscarded() + pool.getStoredCells() / 9);
+		if (pool.getMisses() == 1)
+			assertEquals(0, pool.getStoredCells());
+		pool.close();
+	}
+}
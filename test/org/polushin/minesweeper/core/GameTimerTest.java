@@ -0,0 +1,24 @@
+package org.polushin.minesweeper.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Время остановленного таймера.
+ */
+class GameTimerTest {
+
+	@Test
+	void clearedTimerForgetsPreviousGame() {
+		GameTimer timer = GameTimer.silent();
+		timer.resumeTimer(5000);
+		timer.stopTimer();
+		assertTrue(timer.getTimePassed() >= 5);
+
+		timer.clearTimer();
+		assertEquals(0, timer.getTimePassed());
+		assertEquals(0, timer.getElapsedMillis());
+	}
+}
@@ -0,0 +1,83 @@
+package org.polushin.minesweeper.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Запись таблицы рекордов в журнал.
+ */
+class ScoreStorageTest {
+
+	private static final BoardConfig CONFIG = new BoardConfig(9, 9, 10);
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void scoresSurviveRestart() throws Exception {
+		File base = directory.resolve("scores").toFile();
+		ScoreStorage storage = new ScoreStorage(base);
+		storage.record(new PlayerScore("first", 9, 9, 10, 30));
+		storage.record(new PlayerScore("second", 9, 9, 10, 20));
+		storage.flush();
+		storage.close();
+
+		ScoreStorage restored = new ScoreStorage(base);
+		assertEquals(2, restored.getTop(CONFIG, 10).size());
+		assertEquals(1, restored.getRank(CONFIG, "second"));
+		restored.close();
+	}
+
+	@Test
+	void compactedScoresSurviveRestart() throws Exception {
+		File base = directory.resolve("scores").toFile();
+		ScoreStorage storage = new ScoreStorage(base);
+		for (int i = 0; i < 5000; i++)
+			storage.record(new PlayerScore("player" + i, 9, 9, 10, i));
+		storage.flush();
+		storage.close();
+		assertTrue(Files.exists(directory.resolve("scores.snapshot")));
+
+		ScoreStorage restored = new ScoreStorage(base);
+		assertEquals(5000, restored.getTop(CONFIG, 10000).size());
+		restored.close();
+	}
+
+	@Test
+	void longNickDoesNotBreakJournal() throws Exception {
+		File base = directory.resolve("scores").toFile();
+		ScoreStorage storage = new ScoreStorage(base);
+		storage.record(new PlayerScore("first", 9, 9, 10, 30));
+		storage.record(new PlayerScore("\u044f".repeat(70000), 9, 9, 10, 20));
+		storage.record(new PlayerScore("third", 9, 9, 10, 40));
+		storage.flush();
+		storage.close();
+
+		ScoreStorage restored = new ScoreStorage(base);
+		assertEquals(3, restored.getTop(CONFIG, 10).size());
+		assertEquals(PlayerScore.MAX_NICK_LENGTH, restored.getTop(CONFIG, 10).get(0).nick.length());
+		assertEquals(3, restored.getRank(CONFIG, "third"));
+		restored.close();
+	}
+
+	@Test
+	void unreadableJournalKeepsScoresInMemory() throws Exception {
+		File base = directory.resolve("scores").toFile();
+		byte[] corrupted = {1, 2, 3, 4};
+		Files.write(directory.resolve("scores.snapshot"), corrupted);
+
+		ScoreStorage storage = new ScoreStorage(base);
+		storage.record(new PlayerScore("player", 9, 9, 10, 30));
+		assertTimeoutPreemptively(Duration.ofSeconds(10), storage::flush);
+		assertEquals(1, storage.getRank(CONFIG, "player"));
+		storage.close();
+		assertArrayEquals(corrupted, Files.readAllBytes(directory.resolve("scores.snapshot")));
+	}
+}
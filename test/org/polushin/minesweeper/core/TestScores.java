@@ -0,0 +1,14 @@
+package org.polushin.minesweeper.core;
+
+/**
+ * Создание результатов в тестах других пакетов, так как конструкторы результата закрыты.
+ */
+public final class TestScores {
+
+	private TestScores() {
+	}
+
+	public static PlayerScore create(String nick, int width, int height, int mines, int time) {
+		return new PlayerScore(nick, width, height, mines, time);
+	}
+}
@@ -0,0 +1,69 @@
+package org.polushin.minesweeper.core.field;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Проверка счетчика закрытых клеток: победа определяется им так же, как полным обходом поля.
+ */
+class MineFieldTest {
+
+	private static final int GAMES = 2000;
+	private static final int MAX_MOVES = 400;
+
+	@Test
+	void gameWonMatchesFullScan() {
+		Random random = new Random(20261018);
+		for (int game = 0; game < GAMES; game++) {
+			int width = 1 + random.nextInt(20), height = 2 + random.nextInt(20);
+			int mines = 1 + random.nextInt(width * height / 3 + 1);
+			MineField field = new RandomMinesGenerator(mines, width, height, random.nextLong());
+			field.getCell(random.nextInt(width), random.nextInt(height)).open();
+			assertEquals(scanWon(field), field.isGameWon(), "game " + game + " after first move");
+
+			for (int move = 0; move < MAX_MOVES && !field.isGameOver() && !field.isGameWon(); move++) {
+				Cell cell = field.getCell(random.nextInt(width), random.nextInt(height));
+				// Мины в основном помечаются, чтобы игры доходили до победы, но иногда открываются
+				if (cell.isMine() ? random.nextInt(20) == 0 : random.nextInt(4) == 0)
+					cell.open();
+				else
+					cell.changeFlagSet();
+				assertEquals(scanWon(field), field.isGameWon(), "game " + game + " after move " + move);
+			}
+		}
+	}
+
+	@Test
+	void tooLargeFieldRejectedBeforeAllocation() {
+		assertThrows(IllegalArgumentException.class, () -> new RandomMinesGenerator(1, 100000, 100000, 0));
+	}
+
+	@Test
+	void tooLargeSnapshotRejectedAsCorrupted() {
+		ByteBuffer buffer = ByteBuffer.allocate(7 * Integer.BYTES);
+		buffer.putInt(1).putInt(MineField.MAX_CELLS + 1).putInt(1).putInt(0).putInt(0).putInt(0).putInt(0).flip();
+		IOException e = assertThrows(IOException.class, () -> FieldSnapshot.read(buffer));
+		assertEquals("Wrong field size in snapshot!", e.getMessage());
+	}
+
+	/**
+	 * Прежняя проверка победы: нет взрыва и каждая клетка открыта или помечена флагом.
+	 */
+	private static boolean scanWon(MineField field) {
+		if (field.isGameOver())
+			return false;
+		for (int x = 0; x < field.getWidth(); x++)
+			for (int y = 0; y < field.getHeight(); y++) {
+				Cell cell = field.getCell(x, y);
+				if (!cell.isOpened() && !cell.isFlagSet())
+					return false;
+			}
+		return true;
+	}
+}
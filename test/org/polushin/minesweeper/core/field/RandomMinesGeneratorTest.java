@@ -0,0 +1,88 @@
+package org.polushin.minesweeper.core.field;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверка генерации: все расстановки равновероятны, первый ход не попадает на мину.
+ */
+class RandomMinesGeneratorTest {
+
+	// Поле 3x3 с двумя минами и первым ходом в центр: C(8, 2) = 28 расстановок
+	private static final int SIDE = 3;
+	private static final int MINES = 2;
+	private static final int LAYOUTS = 28;
+	private static final int BOARDS = LAYOUTS * 2000;
+	// Критическое значение хи-квадрат для 27 степеней свободы при уровне значимости 0.001
+	private static final double CHI_SQUARE_CRITICAL = 55.476;
+
+	@Test
+	void layoutsAreUniform() {
+		Random seeds = new Random(4);
+		Map<Long, Integer> counts = new HashMap<>();
+		for (int board = 0; board < BOARDS; board++) {
+			MineField field = new RandomMinesGenerator(MINES, SIDE, SIDE, seeds.nextLong());
+			field.getCell(1, 1);
+			counts.merge(layout(field), 1, Integer::sum);
+		}
+		assertEquals(LAYOUTS, counts.size(), "every layout must occur");
+
+		double expected = (double) BOARDS / LAYOUTS;
+		double chiSquare = 0;
+		for (int count : counts.values())
+			chiSquare += (count - expected) * (count - expected) / expected;
+		assertTrue(chiSquare < CHI_SQUARE_CRITICAL, "chi-square " + chiSquare);
+	}
+
+	@Test
+	void firstMoveIsNeverMined() {
+		Random random = new Random(5);
+		for (int board = 0; board < 10000; board++) {
+			int width = 2 + random.nextInt(10), height = 1 + random.nextInt(10);
+			int mines = 1 + random.nextInt(width * height - 1);
+			int x = random.nextInt(width), y = random.nextInt(height);
+			MineField field = new RandomMinesGenerator(mines, width, height, random.nextLong());
+			assertFalse(field.getCell(x, y).isMine());
+			assertEquals(mines, countMines(field));
+		}
+	}
+
+	@Test
+	void allCellsButFirstMoveMined() {
+		for (int start = 0; start < 12; start++) {
+			MineField field = new RandomMinesGenerator(11, 3, 4, start);
+			field.getCell(start / 4, start % 4);
+			for (int index = 0; index < 12; index++)
+				assertEquals(index != start, field.hasMine(index), "start " + start + ", cell " + index);
+		}
+	}
+
+	@Test
+	void tooManyMinesRejected() {
+		assertThrows(IllegalArgumentException.class, () -> new RandomMinesGenerator(12, 3, 4, 0));
+	}
+
+	/**
+	 * @return Битовая маска мин поля 3x3.
+	 */
+	private static long layout(MineField field) {
+		long mask = 0;
+		for (int index = 0; index < SIDE * SIDE; index++)
+			if (field.hasMine(index))
+				mask |= 1L << index;
+		return mask;
+	}
+
+	private static int countMines(MineField field) {
+		int count = 0;
+		for (int index = 0; index < field.getWidth() * field.getHeight(); index++)
+			if (field.hasMine(index))
+				count++;
+		return count;
+	}
+}
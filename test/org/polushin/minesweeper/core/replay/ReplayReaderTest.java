@@ -0,0 +1,58 @@
+package org.polushin.minesweeper.core.replay;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.polushin.minesweeper.core.BoardMode;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверка заголовка записи игры при чтении.
+ */
+class ReplayReaderTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void validHeaderIsRead() throws IOException {
+		Path file = directory.resolve("valid" + ReplayWriter.FILE_EXTENSION);
+		new ReplayWriter(file, new ReplayHeader(BoardMode.RANDOM, 30, 16, 99, 1, "player", 0)).close();
+		try (ReplayReader reader = new ReplayReader(file)) {
+			assertEquals(30, reader.getHeader().width);
+			assertEquals(99, reader.getHeader().mines);
+		}
+	}
+
+	@Test
+	void hostileHeaderIsRejected() throws IOException {
+		assertRejected(Integer.MAX_VALUE, Integer.MAX_VALUE, 10);
+		assertRejected(1L << 32, 1, 10);
+		assertRejected(-1, 10, 10);
+		assertRejected(0, 10, 1);
+		assertRejected(ReplayHeader.MAX_CELLS, 2, 10);
+		assertRejected(10, 10, 0);
+		assertRejected(10, 10, 100);
+	}
+
+	private void assertRejected(long width, long height, long mines) throws IOException {
+		ByteBuffer head = ByteBuffer.allocate(128);
+		head.putInt(ReplayWriter.MAGIC).put(ReplayWriter.VERSION);
+		Varint.write(head, BoardMode.RANDOM.ordinal());
+		Varint.write(head, width);
+		Varint.write(head, height);
+		Varint.write(head, mines);
+		head.putLong(1);
+		Varint.write(head, 0);
+		Varint.write(head, 0);
+		Path file = directory.resolve("hostile" + ReplayWriter.FILE_EXTENSION);
+		Files.write(file, Arrays.copyOf(head.array(), head.position()));
+		assertThrows(IOException.class, () -> new ReplayReader(file));
+	}
+}
@@ -0,0 +1,76 @@
+package org.polushin.minesweeper.core.replay;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.polushin.minesweeper.core.BoardMode;
+import org.polushin.minesweeper.core.PlayerScore;
+import org.polushin.minesweeper.core.TestScores;
+import org.polushin.minesweeper.core.field.Cell;
+import org.polushin.minesweeper.core.field.MineField;
+import org.polushin.minesweeper.core.field.MineLayout;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Сверка результатов таблицы рекордов с записями игр.
+ */
+class ReplayVerifierTest {
+
+	private static final int MINES = 10, SIDE = 9;
+	private static final long SEED = 42;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void tamperedTimeIsRejected() throws Exception {
+		recordWin(directory.resolve("win" + ReplayWriter.FILE_EXTENSION));
+
+		// Игрок подменил время второго результата той же игры
+		List<PlayerScore> scores = Arrays.asList(score(1), score(0));
+		VerificationReport report = new ReplayVerifier(1).verifyDirectory(directory, scores);
+		assertEquals(1, report.getCount(ReplayStatus.WON));
+		assertEquals(1, report.getConfirmedScores());
+		assertEquals(1, report.getUnconfirmedScores());
+		assertTrue(report.getSuspicious().get(0).contains("Time: 0sec"));
+	}
+
+	private static PlayerScore score(int time) {
+		return TestScores.create("player", SIDE, SIDE, MINES, time);
+	}
+
+	/**
+	 * Записывает выигранную игру, последний ход которой сделан больше чем через секунду после первого.
+	 */
+	private static void recordWin(Path file) throws IOException, InterruptedException {
+		MineField field = BoardMode.RANDOM.newField(MINES, SIDE, SIDE, SEED);
+		// Клетка не показывает мину до открытия, поэтому мины берутся из такого же поля
+		MineLayout mines = MineLayout.of(BoardMode.RANDOM.newField(MINES, SIDE, SIDE, SEED), SIDE / 2, SIDE / 2, true);
+		try (ReplayWriter writer = new ReplayWriter(file, new ReplayHeader(BoardMode.RANDOM, SIDE, SIDE, MINES, SEED,
+		                                                                   "player", 0))) {
+			field.getCell(SIDE / 2, SIDE / 2).open();
+			writer.open(SIDE / 2, SIDE / 2);
+			Thread.sleep(1100);
+			for (int x = 0; x < SIDE; x++)
+				for (int y = 0; y < SIDE; y++) {
+					Cell cell = field.getCell(x, y);
+					if (!mines.isMine(x, y) && !cell.isOpened()) {
+						cell.open();
+						writer.open(x, y);
+					}
+				}
+			for (int x = 0; x < SIDE; x++)
+				for (int y = 0; y < SIDE; y++)
+					if (mines.isMine(x, y)) {
+						field.getCell(x, y).changeFlagSet();
+						writer.flag(x, y);
+					}
+		}
+		assertTrue(field.isGameWon());
+	}
+}
@@ -0,0 +1,43 @@
+package org.polushin.minesweeper.core.solver;
+
+import org.junit.jupiter.api.Test;
+import org.polushin.minesweeper.core.field.MineLayout;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ограничения генератора полей без угадывания.
+ */
+class NoGuessMinesGeneratorTest {
+
+	@Test
+	void rejectsLargeOrDenseFields() {
+		assertThrows(IllegalArgumentException.class, () -> new NoGuessMinesGenerator(10, 5000, 5000, 0));
+		assertThrows(IllegalArgumentException.class, () -> new NoGuessMinesGenerator(30, 10, 10, 0));
+		assertFalse(NoGuessMinesGenerator.isSupported(1, NoGuessMinesGenerator.MAX_CELLS + 1, 1));
+		assertTrue(NoGuessMinesGenerator.isSupported(99, 30, 16));
+	}
+
+	@Test
+	void generatesVerifiedExpertField() {
+		NoGuessMinesGenerator field = new NoGuessMinesGenerator(99, 30, 16, 7);
+		assertFalse(field.getCell(15, 8).isMine());
+		assertTrue(field.isVerified());
+	}
+
+	@Test
+	void fieldDoesNotDependOnParallelism() {
+		ForkJoinPool single = new ForkJoinPool(1), triple = new ForkJoinPool(3);
+		for (long seed = 0; seed < 5; seed++) {
+			MineLayout first = MineLayout.of(new NoGuessMinesGenerator(99, 30, 16, seed, single), 15, 8, true);
+			MineLayout second = MineLayout.of(new NoGuessMinesGenerator(99, 30, 16, seed, triple), 15, 8, true);
+			for (int x = 0; x < 30; x++)
+				for (int y = 0; y < 16; y++)
+					assertEquals(first.isMine(x, y), second.isMine(x, y));
+		}
+		single.shutdown();
+		triple.shutdown();
+	}
+}